@@ -0,0 +1,91 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.service.AuthenticationService;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Các bước của AuthenticationService nằm trên đường đi của mọi request đăng nhập / xác thực.
+ *
+ * ➤ generateToken: dựng claims + scope + ký HS512
+ * ➤ verifyToken: parse + kiểm tra chữ ký, hạn dùng, danh sách thu hồi
+ * ➤ buildScope: ghép scope từ ScopeRegistry, theo số role của user × số permission mỗi role
+ *
+ * generateToken/buildScope là private, được gọi qua MethodHandle (chi phí gọi không đáng kể so với phép đo).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+    private static final int CATALOG_ROLES = 20;
+
+    @Param({"1", "3", "8"})
+    public int rolesPerUser;
+
+    @Param({"5", "40"})
+    public int permissionsPerRole;
+
+    AuthenticationService authenticationService;
+    MethodHandle generateToken;
+    MethodHandle buildScope;
+    User user;
+    String token;
+
+    @Setup
+    public void setup() throws Throwable {
+        List<Role> catalog = BenchmarkFixtures.roles(CATALOG_ROLES, permissionsPerRole);
+        authenticationService = BenchmarkFixtures.authenticationService(BenchmarkFixtures.revocationIndex(),
+                BenchmarkFixtures.signingKeyRing(), BenchmarkFixtures.scopeRegistry(catalog));
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(AuthenticationService.class, MethodHandles.lookup());
+        generateToken = lookup.findVirtual(AuthenticationService.class, "generateToken",
+                MethodType.methodType(String.class, User.class));
+        buildScope = lookup.findVirtual(AuthenticationService.class, "buildScope",
+                MethodType.methodType(String.class, User.class));
+
+        user = User.builder()
+                .username("john")
+                .roles(new HashSet<>(catalog.subList(0, rolesPerUser)))
+                .build();
+        token = (String) generateToken.invoke(authenticationService, user);
+    }
+
+    @Benchmark
+    public String generateToken() throws Throwable {
+        return (String) generateToken.invoke(authenticationService, user);
+    }
+
+    @Benchmark
+    public SignedJWT verifyToken() throws Exception {
+        return authenticationService.verifyToken(token, false);
+    }
+
+    @Benchmark
+    public String buildScope() throws Throwable {
+        return (String) buildScope.invoke(authenticationService, user);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(AuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.service.AuthenticationMetrics;
+import com.example.identity_service.service.AuthenticationService;
+import com.example.identity_service.service.PasswordHashingService;
+import com.example.identity_service.service.RevocationIndex;
+import com.example.identity_service.service.RevocationStore;
+import com.example.identity_service.service.ScopeRegistry;
+import com.example.identity_service.service.SigningKeyRing;
+import com.example.identity_service.service.TokenEpochIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dựng các service của identity-service ngoài Spring context, với cùng giá trị như application.yaml.
+ */
+final class BenchmarkFixtures {
+    static final String SIGNER_KEY = "8C/z/tPPB3uL03Ww61icr3zRDNau8qIkfxxogCiLgdxf3XmfDHJs7Id+CLU/D0Ew";
+
+    private BenchmarkFixtures() {
+    }
+
+    static SigningKeyRing signingKeyRing() {
+        return signingKeyRing("HS512");
+    }
+
+    // algorithm = jwt.algorithm (HS512 | ES256); ES256 dùng khóa sinh ngẫu nhiên
+    static SigningKeyRing signingKeyRing(String algorithm) {
+        SigningKeyRing signingKeyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(signingKeyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(signingKeyRing, "signerKey", SIGNER_KEY);
+        ReflectionTestUtils.setField(signingKeyRing, "rotationPeriod", 86400L);
+        ReflectionTestUtils.setField(signingKeyRing, "refreshableDuration", 360000L);
+        ReflectionTestUtils.invokeMethod(signingKeyRing, "init");
+        return signingKeyRing;
+    }
+
+    // Danh sách thu hồi rỗng: đo đúng đường đi của một token hợp lệ
+    static RevocationIndex revocationIndex() {
+        RevocationStore revocationStore = Mockito.mock(RevocationStore.class);
+        when(revocationStore.findActive(any())).thenReturn(List.of());
+
+        RevocationIndex revocationIndex = new RevocationIndex(revocationStore);
+        ReflectionTestUtils.setField(revocationIndex, "EXPECTED_INSERTIONS", 1_000_000L);
+        ReflectionTestUtils.setField(revocationIndex, "FPP", 0.001);
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 100_000);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_BATCH_SIZE", 1000);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_MAX_LAG", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_GAP_TIMEOUT", 2000L);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_RETENTION", 3600L);
+        ReflectionTestUtils.invokeMethod(revocationIndex, "init");
+        return revocationIndex;
+    }
+
+    static ScopeRegistry scopeRegistry(List<Role> roles) {
+        RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+        when(roleRepository.findAllWithPermissions()).thenReturn(roles);
+        ScopeRegistry scopeRegistry = new ScopeRegistry(roleRepository);
+        scopeRegistry.rebuild();
+        return scopeRegistry;
+    }
+
+    static AuthenticationService authenticationService(RevocationIndex revocationIndex, SigningKeyRing signingKeyRing,
+                                                       ScopeRegistry scopeRegistry) {
+        AuthenticationService authenticationService = new AuthenticationService(
+                Mockito.mock(UserRepository.class), revocationIndex, signingKeyRing,
+                Mockito.mock(PasswordHashingService.class), scopeRegistry,
+                new TokenEpochIndex(Mockito.mock(UserRepository.class)),
+                new AuthenticationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(authenticationService, "VALID_DURATION", 3600L);
+        ReflectionTestUtils.setField(authenticationService, "REFRESHABLE_DURATION", 360000L);
+        return authenticationService;
+    }
+
+    /**
+     * roleCount role, mỗi role permissionsPerRole permission.
+     * Các role liền kề dùng chung một nửa số permission, giống các role thực tế (USER ⊂ EDITOR ⊂ ADMIN...).
+     */
+    static List<Role> roles(int roleCount, int permissionsPerRole) {
+        List<Role> roles = new ArrayList<>(roleCount);
+        int stride = Math.max(1, permissionsPerRole / 2);
+        for (int r = 0; r < roleCount; r++) {
+            Set<Permission> permissions = new LinkedHashSet<>();
+            for (int p = 0; p < permissionsPerRole; p++)
+                permissions.add(Permission.builder().name("PERMISSION_" + (r * stride + p)).build());
+            roles.add(Role.builder().name("ROLE" + r).description("Role " + r).permission(permissions).build());
+        }
+        return roles;
+    }
+}
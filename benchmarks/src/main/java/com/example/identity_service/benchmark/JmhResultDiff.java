@@ -0,0 +1,81 @@
+package com.example.identity_service.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * So sánh hai file kết quả JMH (-rf json), ví dụ bản release trước và bản hiện tại.
+ *
+ * ➤ Khóa so sánh: tên benchmark + các @Param.
+ * ➤ Mode thrpt: score càng cao càng tốt; các mode còn lại (avgt, sample, ss): càng thấp càng tốt.
+ * ➤ Chậm đi quá ngưỡng (mặc định 10%) → in "REGRESSION" và thoát với mã 1, để CI chặn lại.
+ *
+ * Chạy: mvn -f benchmarks exec:java -Dexec.mainClass=com.example.identity_service.benchmark.JmhResultDiff \
+ *   -Dexec.args="baseline.json benchmarks/target/jmh-result.json [ngưỡng %]"
+ */
+public class JmhResultDiff {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    record Score(String mode, double value, double error, String unit) {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultDiff <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Score> entry : new TreeMap<>(current).entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  NEW%n", entry.getKey(), "-", now.value(), "");
+                continue;
+            }
+            // Dương = chậm đi, bất kể mode
+            double change = (now.value() - before.value()) / before.value() * 100;
+            double slowdown = now.mode().equals("thrpt") ? -change : change;
+            boolean regression = slowdown > threshold;
+            if (regression)
+                regressions++;
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s%n", entry.getKey(), before.value(), now.value(),
+                    change, regression ? " REGRESSION" : "");
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-70s %14.3f %14s %9s  REMOVED%n", key, baseline.get(key).value(), "-", ""));
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            // Bỏ tên package cho dễ đọc: "AuthenticationBenchmark.verifyToken:rolesPerUser=3"
+            String benchmark = run.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            JsonNode params = run.path("params");
+            for (Map.Entry<String, JsonNode> param : params.properties()) {
+                key.append(key.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            JsonNode metric = run.path("primaryMetric");
+            scores.put(key.toString(), new Score(run.path("mode").asText(), metric.path("score").asDouble(),
+                    metric.path("scoreError").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+}
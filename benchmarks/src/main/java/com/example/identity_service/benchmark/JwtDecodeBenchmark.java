@@ -0,0 +1,121 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.configuration.CustomJwtDecoder;
+import com.example.identity_service.dto.request.IntrospecRequest;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.service.AuthenticationService;
+import com.example.identity_service.service.RevocationIndex;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh chi phí CPU cho mỗi request khi giải mã Bearer token.
+ *
+ * ➤ before_introspectThenNimbusDecode: pipeline cũ (verify trong introspect rồi NimbusJwtDecoder parse + verify lần nữa)
+ * ➤ after_singlePass: CustomJwtDecoder mới, tắt cache (mỗi lần đều parse + verify MAC)
+ * ➤ after_singlePassCached: CustomJwtDecoder mới, client dùng lại cùng một token
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtDecodeBenchmark {
+    AuthenticationService authenticationService;
+    NimbusJwtDecoder nimbusJwtDecoder;
+    CustomJwtDecoder uncachedDecoder;
+    CustomJwtDecoder cachedDecoder;
+    String token;
+    String legacyToken;
+
+    @Setup
+    public void setup() {
+        RevocationIndex revocationIndex = BenchmarkFixtures.revocationIndex();
+        Role role = Role.builder()
+                .name("USER")
+                .permission(Set.of(Permission.builder().name("READ_DATA").build(),
+                        Permission.builder().name("UPDATE_DATA").build()))
+                .build();
+        authenticationService = BenchmarkFixtures.authenticationService(revocationIndex,
+                BenchmarkFixtures.signingKeyRing(), BenchmarkFixtures.scopeRegistry(List.of(role)));
+
+        nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(BenchmarkFixtures.SIGNER_KEY.getBytes(), "HS512"))
+                .macAlgorithm(MacAlgorithm.HS512)
+                .build();
+        uncachedDecoder = decoder(revocationIndex, 0);
+        cachedDecoder = decoder(revocationIndex, 10_000);
+
+        User user = User.builder().username("john").roles(Set.of(role)).build();
+        token = ReflectionTestUtils.invokeMethod(authenticationService, "generateToken", user);
+
+        // Pipeline cũ chỉ hiểu token không có kid, ký trực tiếp bằng jwt.signerKey
+        try {
+            JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS512),
+                    new Payload(SignedJWT.parse(token).getJWTClaimsSet().toJSONObject()));
+            jwsObject.sign(new MACSigner(BenchmarkFixtures.SIGNER_KEY.getBytes()));
+            legacyToken = jwsObject.serialize();
+        } catch (JOSEException | ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CustomJwtDecoder decoder(RevocationIndex revocationIndex, long cacheMaxSize) {
+        CustomJwtDecoder decoder = new CustomJwtDecoder();
+        ReflectionTestUtils.setField(decoder, "authenticationService", authenticationService);
+        ReflectionTestUtils.setField(decoder, "revocationIndex", revocationIndex);
+        ReflectionTestUtils.setField(decoder, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(decoder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(decoder, "init");
+        return decoder;
+    }
+
+    @Benchmark
+    public Jwt before_introspectThenNimbusDecode() throws Exception {
+        var response = authenticationService.introspect(IntrospecRequest.builder().token(legacyToken).build());
+        if (!response.isValid())
+            throw new IllegalStateException("Token invalid");
+        return nimbusJwtDecoder.decode(legacyToken);
+    }
+
+    @Benchmark
+    public Jwt after_singlePass() {
+        return uncachedDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt after_singlePassCached() {
+        return cachedDecoder.decode(token);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtDecodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.service.SigningKeyRing;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh chi phí ký token: tạo MACSigner + JWSObject mỗi lần (cách cũ) và SigningKeyRing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSignBenchmark {
+    SigningKeyRing signingKeyRing;
+    JWTClaimsSet claims;
+
+    @Setup
+    public void setup() {
+        signingKeyRing = BenchmarkFixtures.signingKeyRing();
+
+        claims = new JWTClaimsSet.Builder()
+                .subject("john")
+                .issuer("dunno.com")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 3_600_000))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "ROLE_USER READ_DATA UPDATE_DATA")
+                .build();
+    }
+
+    @Benchmark
+    public String before_newMacSignerPerToken() throws JOSEException {
+        JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS512), new Payload(claims.toJSONObject()));
+        jwsObject.sign(new MACSigner(BenchmarkFixtures.SIGNER_KEY.getBytes()));
+        return jwsObject.serialize();
+    }
+
+    @Benchmark
+    public String after_keyRing() {
+        return signingKeyRing.sign(claims);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtSignBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.dto.request.ApiResponse;
+import com.example.identity_service.dto.response.UserResponse;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.mapper.UserMapper;
+import com.example.identity_service.mapper.UserMapperImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí dựng response cho các API trả về user:
+ *
+ * ➤ toUserResponse: MapStruct ánh xạ User → UserResponse kèm roles → permissions
+ * ➤ serializeUser: ApiResponse&lt;UserResponse&gt; → JSON (GET /users/myInfo)
+ * ➤ serializePage: ApiResponse&lt;List&lt;UserResponse&gt;&gt; một trang PAGE_SIZE user (GET /users)
+ *
+ * ObjectMapper dựng bằng Jackson2ObjectMapperBuilder, cùng cấu hình mặc định với Spring MVC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseMappingBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1", "3"})
+    public int rolesPerUser;
+
+    @Param({"5", "40"})
+    public int permissionsPerRole;
+
+    UserMapper userMapper;
+    ObjectMapper objectMapper;
+    User user;
+    ApiResponse<UserResponse> single;
+    ApiResponse<List<UserResponse>> page;
+
+    @Setup
+    public void setup() {
+        userMapper = new UserMapperImpl();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Role> roles = BenchmarkFixtures.roles(rolesPerUser, permissionsPerRole);
+        user = User.builder()
+                .id(UUID.randomUUID())
+                .username("john")
+                .firstName("John")
+                .lastName("Doe")
+                .doB(LocalDate.of(1990, 1, 1))
+                .roles(new HashSet<>(roles))
+                .build();
+
+        UserResponse response = userMapper.toUserResponse(user);
+        single = ApiResponse.<UserResponse>builder().result(response).build();
+        page = ApiResponse.<List<UserResponse>>builder()
+                .result(Collections.nCopies(PAGE_SIZE, response))
+                .build();
+    }
+
+    @Benchmark
+    public UserResponse toUserResponse() {
+        return userMapper.toUserResponse(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ResponseMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
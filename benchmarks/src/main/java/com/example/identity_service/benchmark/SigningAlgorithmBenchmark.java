@@ -0,0 +1,136 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.service.SigningKeyRing;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí ký và verify một access token theo từng thuật toán, để chọn giá trị cho jwt.algorithm.
+ *
+ * ➤ HS512, ES256: đúng đường đi trong SigningKeyRing (header encode sẵn, JCA trực tiếp).
+ * ➤ EdDSA (Ed25519, JCA của JDK) và RS256 (RSA 2048, nimbus): chỉ để so sánh, SigningKeyRing chưa hỗ trợ.
+ *   Resource server dùng Spring Security/nimbus chưa verify được EdDSA nếu không thêm Tink.
+ * ➤ verify chỉ tính phần chữ ký, token đã được parse sẵn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningAlgorithmBenchmark {
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    @Param({"HS512", "ES256", "EdDSA", "RS256"})
+    String algorithm;
+
+    JWTClaimsSet claims;
+    SigningKeyRing signingKeyRing;
+    KeyPair ed25519;
+    RSASSASigner rsaSigner;
+    RSASSAVerifier rsaVerifier;
+    String encodedHeader;
+
+    String token;
+    SignedJWT parsed;
+
+    @Setup
+    public void setup() throws Exception {
+        claims = new JWTClaimsSet.Builder()
+                .subject("john")
+                .issuer("dunno.com")
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 3_600_000))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "ROLE_USER READ_DATA UPDATE_DATA")
+                .build();
+
+        switch (algorithm) {
+            case "HS512", "ES256" -> signingKeyRing = BenchmarkFixtures.signingKeyRing(algorithm);
+            case "EdDSA" -> {
+                ed25519 = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+                encodedHeader = new JWSHeader(JWSAlgorithm.EdDSA).toBase64URL() + ".";
+            }
+            case "RS256" -> {
+                RSAKey rsaKey = new RSAKeyGenerator(2048).generate();
+                rsaSigner = new RSASSASigner(rsaKey);
+                rsaVerifier = new RSASSAVerifier(rsaKey.toRSAPublicKey());
+                encodedHeader = new JWSHeader(JWSAlgorithm.RS256).toBase64URL() + ".";
+            }
+            default -> throw new IllegalArgumentException(algorithm);
+        }
+        token = sign();
+        parsed = SignedJWT.parse(token);
+        if (!verify())
+            throw new IllegalStateException("Token signed with " + algorithm + " does not verify");
+    }
+
+    @Benchmark
+    public String sign() throws GeneralSecurityException, JOSEException {
+        return switch (algorithm) {
+            case "EdDSA" -> {
+                String signingInput = signingInput();
+                Signature signature = Signature.getInstance("Ed25519");
+                signature.initSign(ed25519.getPrivate());
+                signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+                yield signingInput + "." + BASE64_URL.encodeToString(signature.sign());
+            }
+            case "RS256" -> {
+                String signingInput = signingInput();
+                JWSHeader header = new JWSHeader(JWSAlgorithm.RS256);
+                yield signingInput + "." + rsaSigner.sign(header, signingInput.getBytes(StandardCharsets.US_ASCII));
+            }
+            default -> signingKeyRing.sign(claims);
+        };
+    }
+
+    @Benchmark
+    public boolean verify() throws GeneralSecurityException, JOSEException, ParseException {
+        return switch (algorithm) {
+            case "EdDSA" -> {
+                Signature signature = Signature.getInstance("Ed25519");
+                signature.initVerify(ed25519.getPublic());
+                signature.update(parsed.getSigningInput());
+                yield signature.verify(BASE64_URL_DECODER.decode(parsed.getSignature().toString()));
+            }
+            case "RS256" -> rsaVerifier.verify(parsed.getHeader(), parsed.getSigningInput(), parsed.getSignature());
+            default -> signingKeyRing.verify(parsed);
+        };
+    }
+
+    private String signingInput() {
+        return encodedHeader + BASE64_URL.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SigningAlgorithmBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
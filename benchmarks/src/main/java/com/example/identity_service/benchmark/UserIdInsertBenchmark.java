@@ -0,0 +1,115 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.util.UuidV7;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh tốc độ insert: khóa chính UUID v4 dạng VARCHAR(255) (cách cũ) và UUIDv7 dạng BINARY(16).
+ *
+ * ➤ Mỗi op là một batch BATCH_SIZE dòng, bảng được nạp sẵn PRELOAD dòng để index đủ lớn.
+ * ➤ Mặc định chạy trên H2; đo trên MySQL/InnoDB thật bằng
+ *   -p url=jdbc:mysql://localhost:3306/bench -p username=root -p password=root
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserIdInsertBenchmark {
+    static final int BATCH_SIZE = 1000;
+    static final int PRELOAD = 200_000;
+
+    @Param("jdbc:h2:mem:user-id-insert;MODE=MySQL;DB_CLOSE_DELAY=-1")
+    public String url;
+
+    @Param("sa")
+    public String username;
+
+    @Param("")
+    public String password;
+
+    Connection connection;
+    PreparedStatement insertV4;
+    PreparedStatement insertV7;
+    long sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists bench_user_v4");
+            statement.execute("drop table if exists bench_user_v7");
+            statement.execute("create table bench_user_v4 (id varchar(255) not null primary key, username varchar(255))");
+            statement.execute("create table bench_user_v7 (id binary(16) not null primary key, username varchar(255))");
+        }
+        connection.setAutoCommit(false);
+        insertV4 = connection.prepareStatement("insert into bench_user_v4 (id, username) values (?, ?)");
+        insertV7 = connection.prepareStatement("insert into bench_user_v7 (id, username) values (?, ?)");
+
+        for (int i = 0; i < PRELOAD / BATCH_SIZE; i++) {
+            before_randomVarchar();
+            after_uuidV7Binary();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] before_randomVarchar() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insertV4.setString(1, UUID.randomUUID().toString());
+            insertV4.setString(2, "user" + sequence++);
+            insertV4.addBatch();
+        }
+        int[] result = insertV4.executeBatch();
+        connection.commit();
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] after_uuidV7Binary() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insertV7.setBytes(1, toBytes(UuidV7.generate()));
+            insertV7.setString(2, "user" + sequence++);
+            insertV7.addBatch();
+        }
+        int[] result = insertV7.executeBatch();
+        connection.commit();
+        return result;
+    }
+
+    // Cùng thứ tự byte mà Hibernate dùng cho UUID lưu BINARY(16)
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(UserIdInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
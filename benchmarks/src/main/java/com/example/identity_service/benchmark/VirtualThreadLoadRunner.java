@@ -0,0 +1,143 @@
+package com.example.identity_service.benchmark;
+
+import com.example.identity_service.IdentityServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * So sánh thông lượng và p99 giữa thread pool của Tomcat (mặc định) và profile "virtual"
+ * với CLIENTS client đồng thời gọi GET /users/myInfo (verify JWT + 1 query DB).
+ *
+ * ➤ Mỗi chế độ khởi động một instance riêng trên port ngẫu nhiên, dùng H2 in-memory.
+ * ➤ Chạy: mvn -f benchmarks exec:java -Dexec.mainClass=com.example.identity_service.benchmark.VirtualThreadLoadRunner \
+ *   -Dexec.args="2000 30" -Dload.username=admin -Dload.password=...
+ *   (tham số: số client, số giây đo; mặc định 2000 client, 30 giây, warm-up 10 giây;
+ *   load.username/load.password: tài khoản đăng nhập, ví dụ admin do ApplicationInitConfig tạo trên DB mới)
+ */
+public class VirtualThreadLoadRunner {
+    private static final String H2_URL =
+            "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE";
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+
+    record Result(String mode, long requests, long errors, double throughput, long p50Micros, long p99Micros) {}
+
+    public static void main(String[] args) throws Exception {
+        String username = requiredProperty("load.username");
+        String password = requiredProperty("load.password");
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 30);
+
+        Result platform = run("platform", username, password, clients, duration);
+        Result virtual = run("virtual", username, password, clients, duration);
+
+        System.out.printf("%n%-10s %10s %8s %12s %10s %10s%n", "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms");
+        for (Result result : new Result[]{platform, virtual})
+            System.out.printf("%-10s %10d %8d %12.0f %10.2f %10.2f%n", result.mode(), result.requests(), result.errors(),
+                    result.throughput(), result.p50Micros() / 1000.0, result.p99Micros() / 1000.0);
+    }
+
+    private static String requiredProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isEmpty())
+            throw new IllegalArgumentException("Missing system property -D" + name);
+        return value;
+    }
+
+    private static Result run(String mode, String username, String password, int clients, Duration duration)
+            throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(IdentityServiceApplication.class);
+        if (mode.equals("virtual"))
+            builder.profiles("virtual");
+
+        // Truyền như tham số dòng lệnh để ghi đè application.yaml
+        try (ConfigurableApplicationContext context = builder.run(
+                "--server.port=0",
+                // Tomcat mặc định 200 thread; cho phép đủ kết nối để 2k client thực sự đồng thời
+                "--server.tomcat.max-connections=" + (clients * 2),
+                "--server.tomcat.accept-count=" + clients,
+                "--spring.datasource.url=" + H2_URL.formatted(mode),
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/identity";
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            String token = login(client, base, username, password);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/users/myInfo"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+
+            drive(client, request, clients, WARMUP);
+            return measure(mode, client, request, clients, duration);
+        }
+    }
+
+    private static String login(HttpClient client, String base, String username, String password) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String body = objectMapper.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/auth/token"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).path("result").path("token").asText();
+    }
+
+    private static Result measure(String mode, HttpClient client, HttpRequest request, int clients, Duration duration)
+            throws InterruptedException {
+        Samples samples = drive(client, request, clients, duration);
+        long[] latencies = samples.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new Result(mode, latencies.length, samples.errors.get(),
+                latencies.length / (duration.toMillis() / 1000.0),
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    private record Samples(ConcurrentLinkedQueue<Long> latencies, AtomicLong errors) {}
+
+    // Mỗi client là một virtual thread gửi request tuần tự (closed loop) cho tới hết thời gian
+    private static Samples drive(HttpClient client, HttpRequest request, int clients, Duration duration)
+            throws InterruptedException {
+        Samples samples = new Samples(new ConcurrentLinkedQueue<>(), new AtomicLong());
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200)
+                                samples.latencies().add((System.nanoTime() - start) / 1000);
+                            else
+                                samples.errors().incrementAndGet();
+                        } catch (Exception e) {
+                            samples.errors().incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.identity_service.configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Giới hạn số request chạy đồng thời, tự điều chỉnh theo độ trễ đo được (kiểu gradient, giảm theo AIMD khi lỗi).
+ *
+ * ➤ Mỗi request xong ghi lại thời gian xử lý; sau mỗi cửa sổ (window ms, đủ min-samples mẫu) tính lại limit:
+ *   gradient = tolerance × độ trễ dài hạn / độ trễ của cửa sổ, kẹp trong [0.5, 1].
+ *   limit mới = limit × gradient + √limit, làm mượt theo smoothing.
+ *   DB chậm → độ trễ cửa sổ tăng vượt mức dài hạn → gradient < 1 → limit giảm trước khi request kịp xếp hàng.
+ * ➤ Cửa sổ có response 5xx → limit × backoff-ratio (multiplicative decrease).
+ * ➤ Cửa sổ mà số request đồng thời chưa tới nửa limit thì không tăng limit: tải thấp không nói gì về sức chứa.
+ * ➤ tryAcquire/release chỉ dùng CAS và LongAdder; chỉ một thread (thắng CAS trên windowStart) tính lại limit.
+ */
+public class AdaptiveConcurrencyLimit {
+    // Độ trễ dài hạn ≈ trung bình trượt của khoảng 20 cửa sổ gần nhất
+    private static final double LONG_RTT_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minSamples;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    private final AtomicLong windowStart;
+
+    private volatile int limit;
+    // Chỉ thread đang tính lại limit đọc/ghi hai field dưới đây
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long windowMillis, int minSamples,
+                                    double tolerance, double smoothing, double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.minSamples = minSamples;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.estimatedLimit = limit;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit)
+                return false;
+            if (inflight.compareAndSet(current, current + 1)) {
+                if (current + 1 > maxInflight.get())
+                    maxInflight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Trả lại chỗ đã lấy bằng tryAcquire.
+     *
+     * @param overloaded response 5xx (hoặc exception): tính như một lần bị quá tải
+     */
+    public void release(long startNanos, long endNanos, boolean overloaded) {
+        inflight.decrementAndGet();
+        rttSum.add(endNanos - startNanos);
+        samples.increment();
+        if (overloaded)
+            drops.increment();
+
+        long start = windowStart.get();
+        if (endNanos - start >= windowNanos && samples.sum() >= minSamples && windowStart.compareAndSet(start, endNanos))
+            update();
+    }
+
+    private synchronized void update() {
+        long count = samples.sumThenReset();
+        double shortRttNanos = (double) rttSum.sumThenReset() / Math.max(count, 1);
+        long dropped = drops.sumThenReset();
+        int peak = maxInflight.getAndSet(inflight.get());
+
+        if (longRttNanos == 0)
+            longRttNanos = shortRttNanos;
+        else
+            longRttNanos = longRttNanos * (1 - LONG_RTT_WEIGHT) + shortRttNanos * LONG_RTT_WEIGHT;
+        // Vừa hết quá tải: độ trễ dài hạn còn cao, kéo nó về nhanh hơn để limit không tăng vọt
+        if (longRttNanos > 2 * shortRttNanos)
+            longRttNanos *= 0.95;
+
+        double next;
+        if (dropped > 0) {
+            next = estimatedLimit * backoffRatio;
+        } else {
+            if (peak < estimatedLimit / 2)
+                return;
+            double gradient = Math.clamp(tolerance * longRttNanos / Math.max(shortRttNanos, 1), 0.5, 1.0);
+            next = estimatedLimit * (1 - smoothing) + (estimatedLimit * gradient + Math.sqrt(estimatedLimit)) * smoothing;
+        }
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
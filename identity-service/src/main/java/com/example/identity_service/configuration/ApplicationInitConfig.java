@@ -24,7 +24,7 @@ import java.util.HashSet;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true) // Các field mặc định là private final
 public class ApplicationInitConfig {
 
-    // Spring sẽ tự inject bean PasswordEncoder từ SecurityConfig
+    // Spring sẽ tự inject bean PasswordEncoder từ PasswordEncoderConfig
     PasswordEncoder passwordEncoder;
 
     /**
@@ -39,7 +39,7 @@ public class ApplicationInitConfig {
     ApplicationRunner applicationRunner(UserRepository userRepository) {
         return args -> {
             // Kiểm tra nếu user admin chưa tồn tại trong database
-            if (userRepository.findByUsername("admin").isEmpty()) {
+            if (userRepository.findByUsernameKey("admin").isEmpty()) {
 
                 // Tạo set chứa role ADMIN (ở đây là string "ADMIN")
                 var roles = new HashSet<String>();
@@ -48,7 +48,7 @@ public class ApplicationInitConfig {
                 // Tạo đối tượng user admin với mật khẩu đã mã hóa
                 User user = User.builder()
                         .username("admin")
-                        .password(passwordEncoder.encode("admin")) // encode mật khẩu bằng BCrypt (hoặc cấu hình trong SecurityConfig)
+                        .password(passwordEncoder.encode("admin")) // encode mật khẩu bằng BCrypt (cấu hình trong PasswordEncoderConfig)
 //                        .roles(roles)
                         .build();
 
@@ -0,0 +1,39 @@
+package com.example.identity_service.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Đăng ký ConcurrencyLimitFilter ngay trước filter chain của Spring Security (SecurityConfig.filterChain),
+ * để request bị cắt tải không tốn công giải mã JWT. Tắt bằng concurrency-limit.enabled = false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${concurrency-limit.initial-limit}") int initialLimit,
+            @Value("${concurrency-limit.min-limit}") int minLimit,
+            @Value("${concurrency-limit.max-limit}") int maxLimit,
+            @Value("${concurrency-limit.window}") long windowMillis,
+            @Value("${concurrency-limit.min-samples}") int minSamples,
+            @Value("${concurrency-limit.tolerance}") double tolerance,
+            @Value("${concurrency-limit.smoothing}") double smoothing,
+            @Value("${concurrency-limit.backoff-ratio}") double backoffRatio,
+            @Value("${concurrency-limit.retry-after}") long retryAfterSeconds) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry,
+                () -> new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, windowMillis, minSamples,
+                        tolerance, smoothing, backoffRatio),
+                retryAfterSeconds);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
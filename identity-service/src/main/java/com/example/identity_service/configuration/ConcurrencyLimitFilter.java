@@ -0,0 +1,108 @@
+package com.example.identity_service.configuration;
+
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.exception.ErrorResponses;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cắt tải ngay đầu filter chain (trước Spring Security) bằng AdaptiveConcurrencyLimit theo từng nhóm endpoint.
+ *
+ * ➤ Mỗi nhóm (auth, introspect, user, admin) có limit riêng: login chậm vì BCrypt không làm introspect bị từ chối,
+ *   admin CRUD nặng không làm người dùng thường (đăng ký, myInfo) bị từ chối.
+ * ➤ Hết chỗ → 503 SERVICE_OVERLOADED kèm Retry-After ngay lập tức, request không xếp hàng trong Tomcat.
+ * ➤ Endpoint ngoài các nhóm (actuator, JWKS) không bị giới hạn, để health check và scrape vẫn chạy khi quá tải.
+ * ➤ Metric theo tag group: http.concurrency.limit, http.concurrency.inflight, http.concurrency.rejected.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    enum Group {
+        AUTH, INTROSPECT, USER, ADMIN
+    }
+
+    private final Map<Group, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+    private final String retryAfter;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry, Supplier<AdaptiveConcurrencyLimit> limitFactory,
+                                  long retryAfterSeconds) {
+        this.retryAfter = Long.toString(retryAfterSeconds);
+        for (Group group : Group.values()) {
+            String tag = group.name().toLowerCase();
+            AdaptiveConcurrencyLimit limit = limitFactory.get();
+            limits.put(group, limit);
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("group", tag)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInflight)
+                    .tag("group", tag)
+                    .description("Requests currently holding a concurrency slot")
+                    .register(meterRegistry);
+            rejected.put(group, Counter.builder("http.concurrency.rejected")
+                    .tag("group", tag)
+                    .description("Requests shed with 503 because the concurrency limit was reached")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupOf(request.getMethod(), request.getRequestURI().substring(request.getContextPath().length()));
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit limit = limits.get(group);
+        if (!limit.tryAcquire()) {
+            rejected.get(group).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            ErrorResponses.write(response, ErrorCode.SERVICE_OVERLOADED);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            filterChain.doFilter(request, response);
+            overloaded = response.getStatus() >= 500;
+        } finally {
+            limit.release(start, System.nanoTime(), overloaded);
+        }
+    }
+
+    // USER: đăng ký (POST /users) và GET /users/myInfo; ADMIN: roles, permissions và mọi endpoint /users còn lại (chỉ ADMIN gọi được)
+    static Group groupOf(String method, String path) {
+        if (path.startsWith("/auth/introspect"))
+            return Group.INTROSPECT;
+        if (path.startsWith("/auth/"))
+            return Group.AUTH;
+        if ((path.equals("/users") && method.equals("POST")) || path.equals("/users/myInfo"))
+            return Group.USER;
+        if (isUnder(path, "/users") || isUnder(path, "/roles") || isUnder(path, "/permissions"))
+            return Group.ADMIN;
+        return null;
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+
+    AdaptiveConcurrencyLimit limit(Group group) {
+        return limits.get(group);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.identity_service.configuration;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Giới hạn số connection được mượn cùng lúc bằng một Semaphore (fair) đứng trước connection pool.
+ *
+ * ➤ Với virtual thread, số request chạy đồng thời không còn bị chặn bởi số thread của Tomcat:
+ *   2k request có thể cùng lao vào pool chỉ có vài chục connection.
+ *   Semaphore xếp hàng chúng theo thứ tự đến (FIFO) và park virtual thread, không chiếm carrier thread.
+ * ➤ Permit được trả lại khi Connection.close() (trả connection về pool), chỉ trả một lần.
+ * ➤ Chờ quá acquireTimeoutMillis → SQLTransientConnectionException, giống Hikari khi hết connection.
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+
+    public ConnectionLimitingDataSource(DataSource target, int maxConcurrency, long acquireTimeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException(
+                        "Connection limit reached, no permit within " + acquireTimeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        }
+    }
+
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    // Như TransactionAwareDataSourceProxy: danh tính là của proxy (DataSourceUtils/ConnectionHolder so sánh
+                    // connection), unwrap về Connection trả chính proxy để close() vẫn đi qua phần trả permit
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Permit-limited proxy for target Connection [" + connection + "]";
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return proxy;
+                            break;
+                        case "isWrapperFor":
+                            if (((Class<?>) args[0]).isInstance(proxy))
+                                return true;
+                            break;
+                        case "close":
+                            // close() lần hai là no-op, như Connection.close() trên connection đã đóng
+                            if (!released.compareAndSet(false, true))
+                                return null;
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                permits.release();
+                            }
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
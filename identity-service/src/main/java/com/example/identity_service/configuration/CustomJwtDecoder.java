@@ -1,51 +1,156 @@
 package com.example.identity_service.configuration;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
-import java.util.Objects;
-import javax.crypto.spec.SecretKeySpec;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
 
-import com.example.identity_service.dto.request.IntrospecRequest;
+import com.example.identity_service.exception.AppException;
 import com.example.identity_service.service.AuthenticationService;
+import com.example.identity_service.service.RevocationIndex;
+import com.example.identity_service.service.TokenEpochIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.stereotype.Component;
 
 import com.nimbusds.jose.JOSEException;
 
+/**
+ * Giải mã Bearer token cho Spring Security trong MỘT lần duy nhất:
+ * parse → kiểm tra chữ ký MAC → kiểm tra hạn → kiểm tra thu hồi (AuthenticationService.verifyToken),
+ * rồi dựng thẳng đối tượng Jwt từ SignedJWT đã verify, không giải mã lại bằng NimbusJwtDecoder.
+ *
+ * ➤ Token đã verify được giữ trong cache (key = SHA-256 của token), hết hạn đúng lúc exp,
+ *   nên client dùng lại cùng một token sẽ bỏ qua toàn bộ phần crypto.
+ * ➤ Cache hit vẫn kiểm tra lại exp, RevocationIndex và TokenEpochIndex (chỉ đọc bộ nhớ),
+ *   để token vừa logout hoặc vừa bị "đăng xuất mọi nơi" bị chặn ngay.
+ */
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
-    @Value("${jwt.signerKey}")
-    private String signerKey;
+    @Value("${jwt.decoder-cache.max-size}")
+    private long cacheMaxSize;
 
     @Autowired
     private AuthenticationService authenticationService;
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+    @Autowired
+    private RevocationIndex revocationIndex;
 
-    @Override
-    public Jwt decode(String token) throws JwtException {
+    @Autowired
+    private TokenEpochIndex tokenEpochIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
+    private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
         try {
-            var response = authenticationService.introspect(
-                    IntrospecRequest.builder().token(token).build());
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // null khi jwt.decoder-cache.max-size = 0 (tắt cache)
+    private Cache<TokenDigest, Jwt> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        if (cacheMaxSize <= 0)
+            return;
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<TokenDigest, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(TokenDigest key, Jwt jwt, long currentTime) {
+                        return Math.max(0, jwt.getExpiresAt().toEpochMilli() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(TokenDigest key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(TokenDigest key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // Tỉ lệ hit cho biết bao nhiêu request bỏ qua được phần crypto (cache.gets{cache=jwt.decoder,result=hit|miss})
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.decoder");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (verifiedTokens == null)
+            return verify(token);
 
-            if (!response.isValid()) throw new JwtException("Token invalid");
-        } catch (JOSEException | ParseException e) {
-            throw new JwtException(e.getMessage());
+        TokenDigest key = TokenDigest.of(token);
+        Jwt cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(Instant.now())
+                    && !revocationIndex.isRevoked(cached.getId())
+                    && !tokenEpochIndex.isStale(cached.getSubject(), toDate(cached.getIssuedAt())))
+                return cached;
+            verifiedTokens.invalidate(key);
+            throw new BadJwtException("Token invalid");
         }
 
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
-                    .build();
+        Jwt jwt = verify(token);
+        verifiedTokens.put(key, jwt);
+        return jwt;
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
+    private Jwt verify(String token) {
+        SignedJWT signedJWT;
+        Map<String, Object> claims;
+        try {
+            signedJWT = authenticationService.verifyToken(token, false);
+            claims = claimSetConverter.convert(signedJWT.getJWTClaimsSet().getClaims());
+        } catch (AppException | JOSEException | ParseException e) {
+            throw new BadJwtException("Token invalid", e);
         }
 
-        return nimbusJwtDecoder.decode(token);
+        return Jwt.withTokenValue(token)
+                .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                .claims(c -> c.putAll(claims))
+                .build();
+    }
+
+    /**
+     * SHA-256 của token, giữ dưới dạng 4 số long để so sánh/hash nhanh và không phải giữ chuỗi token làm key.
+     */
+    private record TokenDigest(long a, long b, long c, long d) {
+        static TokenDigest of(String token) {
+            MessageDigest digest = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
     }
 }
@@ -1,12 +1,10 @@
 package com.example.identity_service.configuration;
 
-import com.example.identity_service.dto.request.ApiResponse;
 import com.example.identity_service.exception.ErrorCode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.identity_service.exception.ErrorResponses;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 
@@ -14,20 +12,10 @@ import java.io.IOException;
 
 public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
+    // Body 401 đã serialize sẵn trong ErrorResponses, không tạo ApiResponse/ObjectMapper mỗi request
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
             throws IOException, ServletException {
-        ErrorCode errorCode = ErrorCode.UNAUTHENTICATED;
-        response.setStatus(errorCode.getHttpStatusCode().value());
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-
-        ApiResponse<?> apiResponse= ApiResponse.builder()
-                .code(errorCode.getCode())
-                .message(errorCode.getMessage())
-                .build();
-        ObjectMapper objectMapper = new ObjectMapper();
-
-        response.getWriter().write(objectMapper.writeValueAsString(apiResponse));
-        response.flushBuffer();
+        ErrorResponses.write(response, ErrorCode.UNAUTHENTICATED);
     }
 }
@@ -0,0 +1,76 @@
+package com.example.identity_service.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Cấu hình PasswordEncoder với cost BCrypt được đo ngay lúc khởi động.
+ *
+ * ➤ Mỗi môi trường có phần cứng khác nhau, nên thay vì cố định strength = 10,
+ *   ta chọn strength cao nhất mà một lần băm vẫn ≤ password-hashing.target-latency
+ *   (giới hạn trong [min-strength, max-strength]).
+ * ➤ Hash lưu theo định dạng delegating: "{bcrypt}$2a$12$...", tức là mang theo cả thuật toán và cost.
+ *   Hash cũ không có tiền tố "{bcrypt}" vẫn được kiểm tra bằng BCrypt như trước.
+ * ➤ upgradeEncoding() = true với hash cũ hoặc cost thấp hơn hiện tại → được băm lại sau khi đăng nhập.
+ */
+@Slf4j
+@Configuration
+public class PasswordEncoderConfig {
+    private static final String BCRYPT = "bcrypt";
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int SAMPLES = 3;
+
+    /**
+     * static: bean không phụ thuộc vào field nào, nên có thể tạo sớm
+     * (PasswordHashingService → AuthenticationService → CustomJwtDecoder → SecurityConfig).
+     */
+    @Bean
+    static PasswordEncoder passwordEncoder(@Value("${password-hashing.target-latency}") long targetMillis,
+                                           @Value("${password-hashing.min-strength}") int minStrength,
+                                           @Value("${password-hashing.max-strength}") int maxStrength) {
+        int strength = calibrate(targetMillis, minStrength, maxStrength);
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(strength);
+
+        DelegatingPasswordEncoder passwordEncoder =
+                new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bCryptPasswordEncoder));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bCryptPasswordEncoder);
+        return passwordEncoder;
+    }
+
+    /**
+     * Tăng dần strength (mỗi bậc gấp đôi thời gian băm) cho tới khi bậc kế tiếp vượt quá target.
+     */
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        long elapsed = measure(strength);
+        while (strength < maxStrength && elapsed * 2 <= targetMillis) {
+            strength++;
+            elapsed = measure(strength);
+        }
+        log.info("Password hashing calibrated: bcrypt strength={} (~{} ms per hash, target {} ms)",
+                strength, elapsed, targetMillis);
+        return strength;
+    }
+
+    // Trung vị của vài lần đo, sau một lần chạy làm nóng
+    private static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(CALIBRATION_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
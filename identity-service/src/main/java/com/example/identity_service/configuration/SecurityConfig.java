@@ -10,8 +10,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
@@ -31,10 +29,28 @@ public class SecurityConfig {
             "/users",
             "/auth/token",
             "/auth/introspect",
+            "/auth/introspect/batch",
             "/auth/logout",
             "/auth/refresh"
     };
 
+    // Actuator chỉ chạy trên management.server.port (nội bộ), cổng public không có các endpoint này
+    private final String[] ACTUATOR_ENDPOINTS = {
+            "/actuator/health",
+            "/actuator/prometheus"
+    };
+
+    // Health probe trên cổng public (management.endpoint.health.probes.add-additional-paths), không lộ metrics
+    private final String[] PROBE_ENDPOINTS = {
+            "/livez",
+            "/readyz"
+    };
+
+    // Public key để service khác tự verify token ES256, không yêu cầu token
+    private final String[] KEY_ENDPOINTS = {
+            "/.well-known/jwks.json"
+    };
+
     @Autowired
     private CustomJwtDecoder customJwtDecoder;
 
@@ -52,6 +68,9 @@ public class SecurityConfig {
         httpSecurity.authorizeHttpRequests(request ->
                 request
                         .requestMatchers(HttpMethod.POST, PUBLIC_ENDPOINTS).permitAll() // Cho phép gọi POST vào các endpoint công khai
+                        .requestMatchers(HttpMethod.GET, ACTUATOR_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.GET, PROBE_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.GET, KEY_ENDPOINTS).permitAll()
                         .anyRequest().authenticated() // Mọi request khác đều phải xác thực
         );
 
@@ -91,15 +110,4 @@ public class SecurityConfig {
 
         return jwtAuthenticationConverter;
     }
-
-    /**
-     * Trả về PasswordEncoder dùng để mã hóa mật khẩu
-     * Ở đây sử dụng BCrypt với strength 10 (số vòng lặp hashing)
-     *
-     * BCrypt tự động sinh salt nội bộ cho từng lần encode → an toàn chống rainbow table
-     */
-    @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
-    }
 }
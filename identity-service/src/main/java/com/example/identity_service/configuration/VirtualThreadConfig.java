@@ -0,0 +1,106 @@
+package com.example.identity_service.configuration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Chế độ chạy trên virtual thread (profile "virtual", bật spring.threads.virtual.enabled).
+ *
+ * ➤ Spring Boot tự chuyển Tomcat, @Async (applicationTaskExecutor) và @Scheduled sang virtual thread.
+ * ➤ Bọc DataSource bằng ConnectionLimitingDataSource: số virtual thread giữ connection cùng lúc
+ *   không vượt virtual-threads.jdbc.max-concurrency (mặc định = hikari.maximum-pool-size).
+ * ➤ Theo dõi sự kiện JFR jdk.VirtualThreadPinned: virtual thread bị ghim vào carrier
+ *   (block I/O bên trong synchronized) quá virtual-threads.pinning.threshold thì ghi log kèm stack
+ *   và tăng counter jvm.threads.virtual.pinned.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 8;
+
+    /**
+     * static: BeanPostProcessor phải được tạo trước các bean khác; Environment đọc trực tiếp
+     * để không kéo theo bean nào khởi tạo sớm.
+     */
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource)
+                    return bean;
+                int maxConcurrency = environment.getRequiredProperty("virtual-threads.jdbc.max-concurrency", Integer.class);
+                long acquireTimeout = environment.getRequiredProperty("virtual-threads.jdbc.acquire-timeout", Long.class);
+                log.info("Limiting DataSource '{}' to {} concurrent connections", beanName, maxConcurrency);
+                return new ConnectionLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                                            @Value("${virtual-threads.pinning.threshold}") long thresholdMillis) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(thresholdMillis));
+    }
+
+    @Slf4j
+    static class VirtualThreadPinningMonitor {
+        private final Counter pinned;
+        private final Duration threshold;
+        private RecordingStream stream;
+
+        VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+            this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                    .description("Virtual threads pinned to their carrier longer than the threshold")
+                    .register(meterRegistry);
+            this.threshold = threshold;
+        }
+
+        @PostConstruct
+        void start() {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+        }
+
+        private void onPinned(RecordedEvent event) {
+            pinned.increment();
+            String frames = event.getStackTrace() == null ? "<no stack trace>"
+                    : event.getStackTrace().getFrames().stream()
+                    .limit(STACK_DEPTH)
+                    .map(VirtualThreadPinningMonitor::format)
+                    .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+            log.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), frames);
+        }
+
+        private static String format(RecordedFrame frame) {
+            return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                    + ":" + frame.getLineNumber();
+        }
+
+        @PreDestroy
+        void stop() {
+            if (stream != null)
+                stream.close();
+        }
+    }
+}
@@ -2,9 +2,12 @@ package com.example.identity_service.controller;
 
 import com.example.identity_service.dto.request.*;
 import com.example.identity_service.dto.response.AuthenticationResponse;
+import com.example.identity_service.dto.response.IntrospecBatchResponse;
 import com.example.identity_service.dto.response.IntrospecResponse;
 import com.example.identity_service.service.AuthenticationService;
+import com.example.identity_service.service.LoginThrottle;
 import com.nimbusds.jose.JOSEException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -45,14 +48,25 @@ public class AuthenticationController {
      */
     AuthenticationService authenticationService;
 
+    /**
+     * Giới hạn đăng nhập theo username và địa chỉ client
+     * ➤ Chặn ngay tại controller, trước khi query user hay chạy BCrypt
+     */
+    LoginThrottle loginThrottle;
+
     /**
      * API POST /auth/token
      * ➤ Nhận vào AuthenticationRequest (username/password)
      * ➤ Trả ra token JWT và các thông tin khác dưới dạng ApiResponse<AuthenticationResponse>
+     * ➤ Quá nhiều lần thử → 429 (TOO_MANY_LOGIN_ATTEMPTS)
      */
     @PostMapping("/token")
-    ApiResponse<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest authenticationRequest) {
-        AuthenticationResponse result = authenticationService.authenticate(authenticationRequest);
+    ApiResponse<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest authenticationRequest,
+                                                     HttpServletRequest httpRequest) {
+        AuthenticationResponse result = loginThrottle.attempt(
+                authenticationRequest.getUsername(),
+                httpRequest.getRemoteAddr(),
+                () -> authenticationService.authenticate(authenticationRequest));
         return ApiResponse.<AuthenticationResponse>builder()
                 .result(result)                          // nội dung trả về chính
                 .message("wtf is going on here")         // thông điệp kèm theo (tùy chỉnh)
@@ -76,6 +90,17 @@ public class AuthenticationController {
                 .build();
     }
 
+    /**
+     * API POST /auth/introspect/batch
+     * ➤ Nhận tối đa introspect.batch.max-size token, trả kết quả theo đúng thứ tự gửi lên
+     */
+    @PostMapping("/introspect/batch")
+    ApiResponse<IntrospecBatchResponse> introspectBatch(@RequestBody IntrospecBatchRequest introspecBatchRequest) {
+        return ApiResponse.<IntrospecBatchResponse>builder()
+                .result(authenticationService.introspectBatch(introspecBatchRequest))
+                .build();
+    }
+
     @PostMapping("/logout")
     ApiResponse<Void> logout(@RequestBody LogoutRequest introspecRequest)
             throws ParseException, JOSEException {
@@ -0,0 +1,51 @@
+package com.example.identity_service.controller;
+
+import com.example.identity_service.service.SigningKeyRing;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API GET /.well-known/jwks.json: public key để các service khác tự verify token ES256 ngay trong process,
+ * không cần signerKey và không phải gọi /auth/introspect cho mỗi request.
+ *
+ * ➤ Trả về đúng định dạng JWK Set (RFC 7517), không bọc trong ApiResponse, để thư viện chuẩn đọc được.
+ *   Với Spring Boot resource server chỉ cần cấu hình:
+ *     spring.security.oauth2.resourceserver.jwt.jwk-set-uri: http://<host>:8080/identity/.well-known/jwks.json
+ *     spring.security.oauth2.resourceserver.jwt.jws-algorithms: ES256
+ * ➤ Cache-Control public, max-age = jwt.jwks.max-age, kèm ETag: client/proxy chỉ tải lại khi khóa đổi (304 nếu không đổi).
+ * ➤ Verify cục bộ không thấy token đã logout; service cần chặn ngay token bị thu hồi vẫn phải gọi introspect.
+ */
+@RestController
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class JwksController {
+    SigningKeyRing signingKeyRing;
+
+    @NonFinal
+    @Value("${jwt.jwks.max-age}")
+    protected long MAX_AGE;
+
+    @GetMapping("/.well-known/jwks.json")
+    ResponseEntity<String> jwks() {
+        String body = signingKeyRing.publicJwkSet().toString();
+        // Có ETag thì Spring tự so với If-None-Match và trả 304 không body
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(body.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(MAX_AGE, TimeUnit.SECONDS).cachePublic())
+                .eTag(eTag)
+                .contentType(MediaType.parseMediaType("application/jwk-set+json"))
+                .body(body);
+    }
+}
@@ -3,16 +3,23 @@ package com.example.identity_service.controller;
 import com.example.identity_service.dto.request.ApiResponse;
 import com.example.identity_service.dto.request.UserCreationRequest;
 import com.example.identity_service.dto.request.UserUpdateRequest;
+import com.example.identity_service.dto.response.CursorPageResponse;
+import com.example.identity_service.dto.response.UserImportResponse;
 import com.example.identity_service.dto.response.UserResponse;
 import com.example.identity_service.entity.User;
+import com.example.identity_service.service.UserExportService;
+import com.example.identity_service.service.UserImportService;
 import com.example.identity_service.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 
 @Slf4j
 @RestController
@@ -20,6 +27,10 @@ import java.util.List;
 public class UserController {
     @Autowired
     private UserService userService;
+    @Autowired
+    private UserExportService userExportService;
+    @Autowired
+    private UserImportService userImportService;
 
     @PostMapping
     ApiResponse<UserResponse> createUser(@RequestBody @Valid UserCreationRequest request){
@@ -29,12 +40,39 @@ public class UserController {
         return apiResponse;
     }
 
+    /**
+     * Danh sách user theo trang (keyset): trang đầu không có cursor,
+     * các trang sau gửi lại nextCursor của trang trước cho tới khi nextCursor = null.
+     */
     @GetMapping
-    ApiResponse<List<UserResponse>> getAllUser(){
-        var authentication = SecurityContextHolder.getContext().getAuthentication();
+    ApiResponse<CursorPageResponse<UserResponse>> getAllUser(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "20") int size,
+                                                             @RequestParam(required = false) String username,
+                                                             @RequestParam(required = false) String name){
+        ApiResponse<CursorPageResponse<UserResponse>> apiResponse = new ApiResponse<>();
+        apiResponse.setResult(userService.getAllUser(cursor, size, username, name));
+        return apiResponse;
+    }
 
-        ApiResponse<List<UserResponse>> apiResponse = new ApiResponse<>();
-        apiResponse.setResult((userService.getAllUser()));
+    /**
+     * Xuất toàn bộ user dạng NDJSON (application/x-ndjson), chỉ dành cho ADMIN.
+     * Dữ liệu được ghi dần ra response trong lúc đọc từ DB, không gom vào bộ nhớ.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        userExportService.exportUsers(response.getOutputStream());
+    }
+
+    /**
+     * Import hàng loạt user từ NDJSON (mỗi dòng một UserCreationRequest), chỉ dành cho ADMIN.
+     * Body được đọc dần theo lô; kết quả trả về cho từng dòng.
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    ApiResponse<UserImportResponse> importUsers(HttpServletRequest request) throws IOException {
+        ApiResponse<UserImportResponse> apiResponse = new ApiResponse<>();
+        apiResponse.setResult(userImportService.importUsers(request.getInputStream()));
         return apiResponse;
     }
 
@@ -60,6 +98,17 @@ public class UserController {
         return apiResponse;
     }
 
+    /**
+     * Thu hồi mọi token của user, chỉ dành cho ADMIN.
+     * Kết quả là mốc thời gian: token có iat trước mốc này bị từ chối.
+     */
+    @PostMapping("/{userId}/revoke-tokens")
+    ApiResponse<Instant> revokeAllTokens(@PathVariable String userId){
+        ApiResponse<Instant> apiResponse = new ApiResponse<>();
+        apiResponse.setResult(userService.revokeAllTokens(userId));
+        return apiResponse;
+    }
+
     @DeleteMapping("/{userId}")
     ApiResponse<User> deleteUser(@PathVariable String userId){
         ApiResponse<User> apiResponse = new ApiResponse<>();
@@ -0,0 +1,18 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * results[i] là kết quả của tokens[i] trong request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IntrospecBatchResponse {
+    List<IntrospecResponse> results;
+}
@@ -1,13 +1,24 @@
 package com.example.identity_service.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
+import java.util.Date;
+
+/**
+ * Kết quả introspect một token.
+ * subject/scope/expiryTime chỉ có trong POST /auth/introspect/batch và chỉ khi token hợp lệ.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class IntrospecResponse {
     boolean valid;
+    String subject;
+    String scope;
+    Date expiryTime;
 }
@@ -0,0 +1,22 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Một dòng NDJSON của /users/export
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserExportResponse {
+    String id;
+    String username;
+    String firstName;
+    String lastName;
+    LocalDate doB;
+    List<String> roles;
+}
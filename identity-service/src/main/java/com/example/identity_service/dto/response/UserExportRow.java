@@ -0,0 +1,23 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Một dòng của truy vấn export: user × role (roleName = null nếu user không có role).
+ * Là DTO chứ không phải entity, nên không nằm lại trong persistence context khi stream.
+ */
+@Getter
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserExportRow {
+    UUID id;
+    String username;
+    String firstName;
+    String lastName;
+    LocalDate doB;
+    String roleName;
+}
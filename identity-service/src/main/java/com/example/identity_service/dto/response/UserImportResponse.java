@@ -0,0 +1,18 @@
+package com.example.identity_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserImportResponse {
+    int total;
+    int created;
+    int failed;
+    List<UserImportRowResponse> rows;
+}
@@ -0,0 +1,20 @@
+package com.example.identity_service.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Kết quả của một dòng import: code = 1000 nếu tạo thành công, ngược lại là mã ErrorCode
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserImportRowResponse {
+    int line;
+    String username;
+    String id;
+    int code;
+    String message;
+}
@@ -1,12 +1,22 @@
 package com.example.identity_service.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.Date;
+import java.util.UUID;
 
+/**
+ * jti đã bị thu hồi.
+ *
+ * ➤ id: jti lưu dạng BINARY(16) thay vì varchar(36)
+ * ➤ bucket: expiryTime (epoch second) / revocation.bucket-seconds, có index,
+ *   để job dọn dẹp xóa theo từng bucket đã hết hạn
+ */
 @Entity
+@Table(name = "revoked_token", indexes = @Index(name = "idx_revoked_token_bucket", columnList = "bucket"))
 @Getter
 @Setter
 @ToString
@@ -15,6 +25,9 @@ import java.util.Date;
 @NoArgsConstructor
 public class InvalidatedToken {
     @Id
-    String id;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    UUID id;
     Date expiryTime;
+    long bucket;
 }
@@ -0,0 +1,34 @@
+package com.example.identity_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Một dòng của change feed thu hồi (bảng chỉ thêm, không sửa).
+ *
+ * ➤ seq: AUTO_INCREMENT, mỗi node đọc tiếp các dòng có seq lớn hơn seq cuối cùng nó đã áp dụng
+ * ➤ createdAt: có index, để job dọn dẹp xóa các dòng đã quá revocation.feed.retention
+ */
+@Entity
+@Table(name = "revocation_event", indexes = @Index(name = "idx_revocation_event_created_at", columnList = "created_at"))
+@Getter
+@Setter
+@ToString
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevocationEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long seq;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    UUID jti;
+    Date expiryTime;
+    Date createdAt;
+}
@@ -1,12 +1,19 @@
 package com.example.identity_service.entity;
 
+import com.example.identity_service.util.UsernameNormalizer;
+import com.example.identity_service.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.SqlTypes;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
 @Entity
 @Getter
@@ -15,19 +22,43 @@ import java.util.Set;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+// Khóa của keyset pagination trên GET /users
+@Table(indexes = {
+        @Index(name = "idx_user_username", columnList = "username, id"),
+        // Chốt chặn cuối cho trùng username (kể cả hai request đăng ký cùng lúc)
+        @Index(name = "uk_user_username_key", columnList = "username_key", unique = true),
+        // TokenEpochIndex.refresh đọc theo khoảng tokens_valid_after mỗi 30 s trên mọi node
+        @Index(name = "idx_user_tokens_valid_after", columnList = "tokens_valid_after")
+})
 public class User {
+    // UUIDv7 tăng dần theo thời gian, lưu BINARY(16): bản ghi mới luôn chèn vào cuối clustered index
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    private UUID id;
     private String username;
+    // UsernameNormalizer.normalize(username), tự cập nhật trước mỗi lần insert/update
+    private String usernameKey;
     private String password;
     private String firstName;
     private String lastName;
     private LocalDate doB;
+    // Mọi token có iat trước mốc này bị từ chối ("đăng xuất mọi nơi").
+    // Chỉ ghi qua UserRepository.updateTokensValidAfter, lưu entity không đè lên giá trị vừa được đặt
+    @Column(insertable = false, updatable = false)
+    private Instant tokensValidAfter;
     @ManyToMany
     @ToString.Exclude
     Set<Role> roles;
 
+    @PrePersist
+    @PreUpdate
+    public void normalizeUsername() {
+        usernameKey = UsernameNormalizer.normalize(username);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
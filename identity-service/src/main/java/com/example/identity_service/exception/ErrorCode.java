@@ -14,7 +14,12 @@ public enum ErrorCode {
     USER_NOT_EXISTED(1004,"User arent existed", HttpStatus.NOT_FOUND),
     UNAUTHENTICATED(1005, "User is not authenticated", HttpStatus.UNAUTHORIZED),
     UNAUTHORIZED(1006, "You do not have permisson", HttpStatus.FORBIDDEN),
-    INVALID_DOB(1007, "Your age must be at least {min}", HttpStatus.BAD_REQUEST)
+    INVALID_DOB(1007, "Your age must be at least {min}", HttpStatus.BAD_REQUEST),
+    SERVICE_OVERLOADED(1008, "Server is busy, please try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_CURSOR(1009, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    INVALID_IMPORT_ROW(1010, "Malformed import row", HttpStatus.BAD_REQUEST),
+    INTROSPECT_BATCH_TOO_LARGE(1011, "Too many tokens in one introspect batch", HttpStatus.BAD_REQUEST),
+    TOO_MANY_LOGIN_ATTEMPTS(1012, "Too many login attempts, please try again later", HttpStatus.TOO_MANY_REQUESTS)
     ;
 
     ErrorCode(int code, String message, HttpStatusCode httpStatusCode) {
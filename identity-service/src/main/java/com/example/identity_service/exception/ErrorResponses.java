@@ -0,0 +1,106 @@
+package com.example.identity_service.exception;
+
+import com.example.identity_service.dto.request.ApiResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Body JSON của response lỗi (ApiResponse chỉ có code + message), serialize sẵn thành byte[].
+ *
+ * ➤ Mỗi ErrorCode được serialize MỘT lần khi nạp class; 401/403 và AppException chỉ còn ghi mảng byte có sẵn,
+ *   không tạo ApiResponse hay ObjectMapper cho từng request (đường nóng khi bị dò mật khẩu / gửi token rác).
+ * ➤ Message có tham số ({min}): mỗi giá trị tham số được render và cache lần đầu gặp;
+ *   giá trị lấy từ annotation validation nên số biến thể là hữu hạn.
+ * ➤ Các mảng byte không bao giờ bị sửa sau khi tạo, dùng chung giữa mọi thread.
+ */
+public final class ErrorResponses {
+    private static final String MIN_ATTRIBUTE = "min";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<ErrorCode, byte[]> BODIES = new EnumMap<>(ErrorCode.class);
+    private static final Map<ErrorCode, Map<String, byte[]>> TEMPLATED = new ConcurrentHashMap<>();
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values())
+            BODIES.put(errorCode, serialize(errorCode, errorCode.getMessage()));
+    }
+
+    private ErrorResponses() {
+    }
+
+    public static byte[] body(ErrorCode errorCode) {
+        return BODIES.get(errorCode);
+    }
+
+    /**
+     * Body với {min} trong message được thay bằng attributes.get("min").
+     */
+    public static byte[] body(ErrorCode errorCode, Map<String, Object> attributes) {
+        if (!isTemplated(errorCode, attributes))
+            return body(errorCode);
+        return TEMPLATED.computeIfAbsent(errorCode, code -> new ConcurrentHashMap<>())
+                .computeIfAbsent(String.valueOf(attributes.get(MIN_ATTRIBUTE)),
+                        min -> serialize(errorCode, message(errorCode, attributes)));
+    }
+
+    /**
+     * Message của errorCode với {min} được thay bằng attributes.get("min") (attributes null → message gốc).
+     */
+    public static String message(ErrorCode errorCode, Map<String, Object> attributes) {
+        if (!isTemplated(errorCode, attributes))
+            return errorCode.getMessage();
+        return errorCode.getMessage().replace("{" + MIN_ATTRIBUTE + "}", String.valueOf(attributes.get(MIN_ATTRIBUTE)));
+    }
+
+    /**
+     * ErrorCode tương ứng message của một rule validation (message = tên ErrorCode), không khớp → INVALID_KEY.
+     */
+    public static ErrorCode codeOf(String validationMessage) {
+        try {
+            return ErrorCode.valueOf(validationMessage);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return ErrorCode.INVALID_KEY;
+        }
+    }
+
+    private static boolean isTemplated(ErrorCode errorCode, Map<String, Object> attributes) {
+        return attributes != null && attributes.get(MIN_ATTRIBUTE) != null
+                && errorCode.getMessage().contains("{" + MIN_ATTRIBUTE + "}");
+    }
+
+    public static ResponseEntity<byte[]> toResponseEntity(ErrorCode errorCode) {
+        return ResponseEntity.status(errorCode.getHttpStatusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body(errorCode));
+    }
+
+    /**
+     * Ghi thẳng ra output stream của servlet (dùng ở filter chain của Spring Security, ngoài DispatcherServlet).
+     */
+    public static void write(HttpServletResponse response, ErrorCode errorCode) throws IOException {
+        byte[] body = body(errorCode);
+        response.setStatus(errorCode.getHttpStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+
+    private static byte[] serialize(ErrorCode errorCode, String message) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(ApiResponse.builder()
+                    .code(errorCode.getCode())
+                    .message(message)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize error response " + errorCode, e);
+        }
+    }
+}
@@ -11,8 +11,12 @@ import org.mapstruct.MappingTarget;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
+    @Mapping(target = "usernameKey", ignore = true) // UserService gán từ UsernameNormalizer
+    @Mapping(target = "tokensValidAfter", ignore = true) // chỉ đổi qua UserService.revokeAllTokens
     User toUser(UserCreationRequest request);
     @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "usernameKey", ignore = true)
+    @Mapping(target = "tokensValidAfter", ignore = true)
     void updateUser(@MappingTarget User user,  UserUpdateRequest request);
     UserResponse toUserResponse(User user);
 }
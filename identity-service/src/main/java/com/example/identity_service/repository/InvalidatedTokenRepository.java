@@ -1,7 +1,28 @@
 package com.example.identity_service.repository;
 
 import com.example.identity_service.entity.InvalidatedToken;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, UUID> {
+    List<InvalidatedToken> findAllByExpiryTimeAfter(Date time);
+
+    @Query("select distinct t.bucket from InvalidatedToken t where t.bucket < :bucket order by t.bucket")
+    List<Long> findBucketsBefore(long bucket);
+
+    @Query("select t.id from InvalidatedToken t where t.bucket = :bucket")
+    List<UUID> findIdsByBucket(long bucket, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from InvalidatedToken t where t.id in :ids")
+    int deleteAllByIdIn(Collection<UUID> ids);
 }
@@ -0,0 +1,29 @@
+package com.example.identity_service.repository;
+
+import com.example.identity_service.entity.RevocationEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface RevocationEventRepository extends JpaRepository<RevocationEvent, Long> {
+    @Query("select max(e.seq) from RevocationEvent e")
+    Optional<Long> findLatestSeq();
+
+    // Đọc tiếp feed: seq là khóa chính nên chỉ quét đúng đoạn mới
+    List<RevocationEvent> findBySeqGreaterThanOrderBySeq(long seq, Limit limit);
+
+    @Query("select e.seq from RevocationEvent e where e.createdAt < :before")
+    List<Long> findSeqsCreatedBefore(Date before, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RevocationEvent e where e.seq in :seqs")
+    int deleteAllBySeqIn(Collection<Long> seqs);
+}
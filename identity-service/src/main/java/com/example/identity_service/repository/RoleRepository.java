@@ -1,7 +1,14 @@
 package com.example.identity_service.repository;
 
 import com.example.identity_service.entity.Role;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface RoleRepository extends JpaRepository<Role, String> {
+    @EntityGraph(attributePaths = "permission")
+    @Query("select r from Role r")
+    List<Role> findAllWithPermissions();
 }
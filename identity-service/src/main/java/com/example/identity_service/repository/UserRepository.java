@@ -1,13 +1,103 @@
 package com.example.identity_service.repository;
 
+import com.example.identity_service.dto.response.UserExportRow;
 import com.example.identity_service.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, String> {
-    boolean existsByUsername(String username);
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, UUID> {
+    // Mọi tra cứu theo username đều đi qua cột username_key (unique index), tham số đã qua UsernameNormalizer
+    Optional<User> findByUsernameKey(String usernameKey);
+
+    // Kiểm tra trùng trước khi băm password khi đăng ký (chỉ đọc unique index, không đọc dòng)
+    boolean existsByUsernameKey(String usernameKey);
+
+    // Các dòng cũ chưa có username_key (cột được ddl-auto thêm vào sau), đọc theo keyset trên id
+    List<User> findByUsernameKeyIsNullAndIdGreaterThanOrderById(UUID afterId, Limit limit);
+
+    // Kiểm tra trùng username cho cả một lô trong một câu SQL (bulk import)
+    @Query("select u.usernameKey from User u where u.usernameKey in :usernameKeys")
+    List<String> findExistingUsernameKeys(Collection<String> usernameKeys);
+
+    // user + roles + permissions trong một câu SQL (myInfo trả về cả permission của từng role)
+    @EntityGraph(attributePaths = {"roles", "roles.permission"})
+    Optional<User> findWithRolesByUsernameKey(String usernameKey);
+
+    // Dùng khi phát hành token: chỉ cần tên role, scope lấy từ ScopeRegistry
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findWithRoleNamesByUsernameKey(String usernameKey);
+
+    /**
+     * Keyset pagination theo (username, id): mỗi trang bắt đầu ngay sau khóa cuối của trang trước,
+     * nên chi phí mỗi trang như nhau dù đang ở đầu hay cuối bảng (không dùng OFFSET).
+     * Các filter null thì bỏ qua; usernamePrefix/namePrefix đã được escape (ký tự escape là '!') và thêm '%'.
+     */
+    @Query("""
+            select u.id from User u
+            where (:afterUsername is null
+                    or u.username > :afterUsername
+                    or (u.username = :afterUsername and u.id > :afterId))
+              and (:usernamePrefix is null or u.username like :usernamePrefix escape '!')
+              and (:namePrefix is null
+                    or u.firstName like :namePrefix escape '!'
+                    or u.lastName like :namePrefix escape '!')
+            order by u.username, u.id
+            """)
+    List<UUID> findPageIds(String afterUsername, UUID afterId,
+                             String usernamePrefix, String namePrefix, Limit limit);
+
+    @EntityGraph(attributePaths = {"roles", "roles.permission"})
+    List<User> findAllWithRolesByIdIn(Collection<UUID> ids);
+
+    /**
+     * Toàn bộ user kèm tên role, đọc tuần tự bằng cursor phía JDBC (fetch size 1000).
+     * Sắp theo id nên các dòng của cùng một user luôn liền nhau; phải dùng trong transaction và đóng stream.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            select new com.example.identity_service.dto.response.UserExportRow(
+                u.id, u.username, u.firstName, u.lastName, u.doB, r.name)
+            from User u left join u.roles r
+            order by u.id
+            """)
+    Stream<UserExportRow> streamExportRows();
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokensValidAfter = :validAfter where u.id = :id")
+    int updateTokensValidAfter(UUID id, Instant validAfter);
+
+    // Các mốc "đăng xuất mọi nơi" còn có tác dụng (token phát hành trước since đều đã hết hạn)
+    List<TokenEpoch> findByTokensValidAfterAfter(Instant since);
+
+    interface TokenEpoch {
+        String getUsernameKey();
+        Instant getTokensValidAfter();
+    }
+
+    // Cập nhật có điều kiện: chỉ thay khi password hiện tại vẫn là oldPassword
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(UUID id, String oldPassword, String newPassword);
 }
@@ -0,0 +1,66 @@
+package com.example.identity_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer cho từng bước của AuthenticationService và counter kết quả introspect.
+ *
+ * ➤ auth.stage{stage=lookup|password_match|scope_build|sign|revocation_check|revocation_write}
+ * ➤ auth.introspect{outcome=valid|invalid}
+ * ➤ Mọi meter (kèm tag) được đăng ký một lần lúc khởi động và giữ trong mảng theo Stage.ordinal(),
+ *   nên mỗi lần ghi chỉ là System.nanoTime() + record(), không tạo Tags/mảng tag, không tra registry.
+ */
+@Component
+public class AuthenticationMetrics {
+    public enum Stage {
+        LOOKUP("lookup"),
+        PASSWORD_MATCH("password_match"),
+        SCOPE_BUILD("scope_build"),
+        SIGN("sign"),
+        REVOCATION_CHECK("revocation_check"),
+        REVOCATION_WRITE("revocation_write");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Timer[] stages = new Timer[Stage.values().length];
+    private final Counter introspectValid;
+    private final Counter introspectInvalid;
+
+    public AuthenticationMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values())
+            stages[stage.ordinal()] = Timer.builder("auth.stage")
+                    .description("Time spent in one stage of authentication / token verification")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+        this.introspectValid = introspectCounter(meterRegistry, "valid");
+        this.introspectInvalid = introspectCounter(meterRegistry, "invalid");
+    }
+
+    private static Counter introspectCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.introspect")
+                .description("Introspected tokens by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param startNanos giá trị System.nanoTime() lúc bắt đầu bước
+     */
+    public void record(Stage stage, long startNanos) {
+        stages[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void introspected(boolean valid) {
+        (valid ? introspectValid : introspectInvalid).increment();
+    }
+}
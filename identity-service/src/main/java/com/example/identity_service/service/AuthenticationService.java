@@ -1,20 +1,22 @@
 package com.example.identity_service.service;
 
 import com.example.identity_service.dto.request.AuthenticationRequest;
+import com.example.identity_service.dto.request.IntrospecBatchRequest;
 import com.example.identity_service.dto.request.IntrospecRequest;
 import com.example.identity_service.dto.request.LogoutRequest;
 import com.example.identity_service.dto.request.RefreshRequest;
 import com.example.identity_service.dto.response.AuthenticationResponse;
+import com.example.identity_service.dto.response.IntrospecBatchResponse;
 import com.example.identity_service.dto.response.IntrospecResponse;
-import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.entity.Role;
 import com.example.identity_service.entity.User;
 import com.example.identity_service.exception.AppException;
 import com.example.identity_service.exception.ErrorCode;
-import com.example.identity_service.repository.InvalidatedTokenRepository;
 import com.example.identity_service.repository.UserRepository;
-import com.nimbusds.jose.*;
-import com.nimbusds.jose.crypto.MACSigner;
-import com.nimbusds.jose.crypto.MACVerifier;
+import com.example.identity_service.service.AuthenticationMetrics.Stage;
+import com.example.identity_service.util.UsernameNormalizer;
+import com.example.identity_service.util.UuidV7;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.AccessLevel;
@@ -23,8 +25,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
@@ -32,8 +32,11 @@ import org.springframework.util.CollectionUtils;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.StringJoiner;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -42,11 +45,12 @@ import java.util.UUID;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AuthenticationService {
     UserRepository userRepository;
-    InvalidatedTokenRepository invalidatedTokenRepository;
-
-    @NonFinal
-    @Value("${jwt.signerKey}")
-    protected String SIGNER_KEY;
+    RevocationIndex revocationIndex;
+    SigningKeyRing signingKeyRing;
+    PasswordHashingService passwordHashingService;
+    ScopeRegistry scopeRegistry;
+    TokenEpochIndex tokenEpochIndex;
+    AuthenticationMetrics metrics;
 
     @NonFinal
     @Value("${jwt.valid-duration}")
@@ -56,14 +60,22 @@ public class AuthenticationService {
     @Value("${jwt.refreshable-duration}")
     protected long REFRESHABLE_DURATION;
 
+    @NonFinal
+    @Value("${introspect.batch.max-size}")
+    protected int MAX_BATCH_SIZE;
+
     public AuthenticationResponse authenticate(AuthenticationRequest request)
     {
-        var user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-        boolean authenticated = passwordEncoder.matches(request.getPassword(), user.getPassword());
+        var user = findUser(request.getUsername(), ErrorCode.USER_NOT_EXISTED);
+        // BCrypt chạy trên luồng băm riêng, không chiếm CPU của request thread
+        long start = System.nanoTime();
+        boolean authenticated = passwordHashingService.matches(request.getPassword(), user.getPassword());
+        metrics.record(Stage.PASSWORD_MATCH, start);
         if(!authenticated)
             throw new AppException(ErrorCode.UNAUTHENTICATED);
+        // Hash cũ (không có tiền tố {bcrypt} hoặc cost thấp hơn cost đã hiệu chỉnh) → băm lại ở nền
+        if (passwordHashingService.upgradeEncoding(user.getPassword()))
+            upgradePassword(user.getId(), request.getPassword(), user.getPassword());
         var token = generateToken(user);
         return AuthenticationResponse.builder()
                 .token(token)
@@ -71,6 +83,17 @@ public class AuthenticationService {
                 .build();
     }
 
+    /**
+     * Chỉ ghi hash mới nếu password trong DB vẫn là hash cũ,
+     * tránh đè lên mật khẩu vừa được đổi trong lúc đang băm lại.
+     */
+    private void upgradePassword(UUID userId, String rawPassword, String oldPassword) {
+        passwordHashingService.rehashInBackground(rawPassword, newPassword -> {
+            if (userRepository.updatePassword(userId, oldPassword, newPassword) > 0)
+                log.info("Upgraded password hash for user {}", userId);
+        });
+    }
+
     public IntrospecResponse introspect(IntrospecRequest request) throws JOSEException, ParseException {
         var token = request.getToken();
         boolean isValid = true;
@@ -81,25 +104,69 @@ public class AuthenticationService {
             isValid = false;
         }
 
+        metrics.introspected(isValid);
         return IntrospecResponse.builder()
                 .valid(isValid)
                 .build();
     }
 
+    /**
+     * Introspect nhiều token trong một request (dành cho API gateway gom các request đồng thời).
+     *
+     * ➤ Parse + kiểm tra chữ ký/hạn dùng chạy tuần tự trên thread của request: mỗi token chỉ mất vài micro giây
+     *   và lô đã bị giới hạn kích thước, còn chạy song song thì endpoint public này chiếm common ForkJoinPool.
+     * ➤ Kiểm tra thu hồi gộp cho cả lô: các jti cần hỏi DB được hỏi trong MỘT câu IN (...).
+     * ➤ Token hợp lệ trả kèm subject, scope, expiryTime; token sai định dạng chỉ là valid = false.
+     */
+    public IntrospecBatchResponse introspectBatch(IntrospecBatchRequest request) {
+        List<String> tokens = request.getTokens() == null ? List.of() : request.getTokens();
+        if (tokens.size() > MAX_BATCH_SIZE)
+            throw new AppException(ErrorCode.INTROSPECT_BATCH_TOO_LARGE);
+
+        // null = token không qua được bước parse / chữ ký / hạn dùng
+        List<JWTClaimsSet> claims = tokens.stream()
+                .map(this::verifiedClaimsOrNull)
+                .toList();
+
+        long start = System.nanoTime();
+        Set<String> revoked = revocationIndex.revokedAmong(claims.stream()
+                .filter(Objects::nonNull)
+                .map(JWTClaimsSet::getJWTID)
+                .toList());
+        metrics.record(Stage.REVOCATION_CHECK, start);
+
+        List<IntrospecResponse> results = new ArrayList<>(tokens.size());
+        for (JWTClaimsSet claimsSet : claims) {
+            boolean valid = claimsSet != null && !revoked.contains(claimsSet.getJWTID());
+            metrics.introspected(valid);
+            results.add(valid
+                    ? IntrospecResponse.builder()
+                        .valid(true)
+                        .subject(claimsSet.getSubject())
+                        .scope((String) claimsSet.getClaim("scope"))
+                        .expiryTime(claimsSet.getExpirationTime())
+                        .build()
+                    : IntrospecResponse.builder().valid(false).build());
+        }
+        return IntrospecBatchResponse.builder().results(results).build();
+    }
+
+    private JWTClaimsSet verifiedClaimsOrNull(String token) {
+        if (token == null)
+            return null;
+        try {
+            return verifySignature(token, false).getJWTClaimsSet();
+        } catch (AppException | JOSEException | ParseException e) {
+            return null;
+        }
+    }
+
     public AuthenticationResponse refreshToken(RefreshRequest request)
             throws ParseException, JOSEException {
         var signedJWT = verifyToken(request.getToken(), true);
-        var jit = signedJWT.getJWTClaimsSet().getJWTID();
-        var expiryTime = signedJWT.getJWTClaimsSet().getExpirationTime();
-        InvalidatedToken invalidatedToken = new InvalidatedToken().builder()
-                .id(jit)
-                .expiryTime(expiryTime)
-                .build();
-        invalidatedTokenRepository.save(invalidatedToken);
+        invalidateToken(signedJWT);
         var userName = signedJWT.getJWTClaimsSet().getSubject();
-        var user = userRepository.findByUsername(userName).orElseThrow(
-                () -> new AppException(ErrorCode.UNAUTHENTICATED)
-        );
+        var user = findUser(userName, ErrorCode.UNAUTHENTICATED);
         var token = generateToken(user);
         return AuthenticationResponse.builder()
                 .token(token)
@@ -107,21 +174,28 @@ public class AuthenticationService {
                 .build();
     }
 
+    private User findUser(String username, ErrorCode notFound) {
+        long start = System.nanoTime();
+        try {
+            return userRepository.findWithRoleNamesByUsernameKey(UsernameNormalizer.normalize(username))
+                    .orElseThrow(() -> new AppException(notFound));
+        } finally {
+            metrics.record(Stage.LOOKUP, start);
+        }
+    }
+
     /**
      * Tạo JWT (JSON Web Token) cho người dùng đã xác thực
-     * Token được ký bằng thuật toán HMAC SHA-512 (HS512)
+     * Token được ký bằng khóa hiện hành của SigningKeyRing: HMAC SHA-512 (HS512) hoặc ECDSA P-256 (ES256) theo jwt.algorithm
      *
-     * ➤ Thư viện dùng: com.nimbusds:nimbus-jose-jwt
-     * ➤ Token trả ra là chuỗi JWT đã được ký (compact serialized string)
+     * ➤ Thư viện dùng: com.nimbusds:nimbus-jose-jwt (chỉ để dựng claims)
+     * ➤ Token trả ra là chuỗi JWT đã được ký (compact serialized string), header có kid của khóa ký
      *
      * @param user - thực thể người dùng đã đăng nhập
      * @return chuỗi JWT hợp lệ, có chữ ký, mang thông tin xác thực của user
      */
     private String generateToken(User user) {
 
-        // Tạo phần header của JWT, chỉ định thuật toán ký là HS512
-        JWSHeader jwsHeader = new JWSHeader(JWSAlgorithm.HS512);
-
         // Xây dựng phần payload (claims) của JWT
         JWTClaimsSet jwtClaimsSet = new JWTClaimsSet.Builder()
                 .subject(user.getUsername())
@@ -130,47 +204,41 @@ public class AuthenticationService {
                 .expirationTime(new Date(
                         Instant.now().plus(VALID_DURATION, ChronoUnit.SECONDS).toEpochMilli()
                 ))
-                .jwtID(UUID.randomUUID().toString())
+                .jwtID(UuidV7.generate().toString())   // jti tăng dần theo thời gian, lưu gọn trong revoked_token
                 .claim("scope", buildScope(user))     // custom claim chứa danh sách quyền (roles)
                 .build();
 
-        // Chuyển claims thành payload JSON
-        Payload payload = new Payload(jwtClaimsSet.toJSONObject());
-
-        // Kết hợp header và payload để tạo đối tượng JWSObject (JWT chưa ký)
-        JWSObject jwsObject = new JWSObject(jwsHeader, payload);
+        // Header (alg + kid) đã được encode sẵn trong key ring, chỉ còn encode payload và tính MAC
+        long start = System.nanoTime();
+        String token = signingKeyRing.sign(jwtClaimsSet);
+        metrics.record(Stage.SIGN, start);
+        return token;
+    }
 
-        try {
-            // Ký token bằng khóa bí mật (HMAC-SHA512)
-            // MACSigner sẽ dùng byte[] của key để ký (HS512 yêu cầu key >= 512 bits để an toàn)
-            jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes()));
+    // Scope ghép từ các đoạn dựng sẵn trong ScopeRegistry, chỉ cần tên role (không chạm tới permission)
+    private String buildScope(User user){
+        if(CollectionUtils.isEmpty(user.getRoles()))
+            return "";
+        long start = System.nanoTime();
+        String scope = scopeRegistry.scopeOf(user.getRoles().stream().map(Role::getName).toList());
+        metrics.record(Stage.SCOPE_BUILD, start);
+        return scope;
+    }
 
-            // Trả ra chuỗi JWT đã được ký, ở dạng compact serialization (chuỗi . ngăn cách 3 phần)
-            return jwsObject.serialize();
+    public SignedJWT verifyToken(String token, boolean isRefresh) throws JOSEException, ParseException {
+        SignedJWT signedJWT = verifySignature(token, isRefresh);
 
-        } catch (JOSEException e) {
-            // Ghi log nếu có lỗi khi ký JWT và ném runtime exception
-            log.error("Cannot create token");
-            throw new RuntimeException(e);
-        }
-    }
+        long start = System.nanoTime();
+        boolean revoked = revocationIndex.isRevoked(signedJWT.getJWTClaimsSet().getJWTID());
+        metrics.record(Stage.REVOCATION_CHECK, start);
+        if (revoked)
+                throw new AppException(ErrorCode.UNAUTHENTICATED);
 
-    private String buildScope(User user){
-        StringJoiner stringJoiner = new StringJoiner(" ");
-        if(!CollectionUtils.isEmpty(user.getRoles())){
-            user.getRoles().forEach(role -> {
-                stringJoiner.add("ROLE_"+role.getName());
-                if(!CollectionUtils.isEmpty(role.getPermission()))
-                    role.getPermission().forEach(permission -> {
-                        stringJoiner.add(permission.getName());
-                    });
-            });
-        }
-        return stringJoiner.toString();
+        return signedJWT;
     }
 
-    private SignedJWT verifyToken(String token, boolean isRefresh) throws JOSEException, ParseException {
-        JWSVerifier verifier = new MACVerifier(SIGNER_KEY.getBytes());
+    // Parse + kiểm tra chữ ký, hạn dùng và mốc "đăng xuất mọi nơi" của user (chỉ đọc bộ nhớ), chưa kiểm tra jti
+    private SignedJWT verifySignature(String token, boolean isRefresh) throws JOSEException, ParseException {
         SignedJWT signedJWT = SignedJWT.parse(token);
 
         Date expiryTime = (isRefresh)
@@ -178,26 +246,20 @@ public class AuthenticationService {
                 .toInstant().plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS).toEpochMilli())
                 : signedJWT.getJWTClaimsSet().getExpirationTime();
 
-        var verified = signedJWT.verify(verifier);
+        var verified = signingKeyRing.verify(signedJWT);
         if (!(verified && expiryTime.after(new Date()))){
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
-                throw new AppException(ErrorCode.UNAUTHENTICATED);
-
+        var claims = signedJWT.getJWTClaimsSet();
+        if (tokenEpochIndex.isStale(claims.getSubject(), claims.getIssueTime()))
+            throw new AppException(ErrorCode.UNAUTHENTICATED);
         return signedJWT;
     }
 
     public void logout(LogoutRequest request) throws ParseException, JOSEException {
         try{
             var signToken = verifyToken(request.getToken(), true);
-            String jit = signToken.getJWTClaimsSet().getJWTID();
-            Date expiryTime = signToken.getJWTClaimsSet().getExpirationTime();
-            InvalidatedToken invalidatedToken = new InvalidatedToken().builder()
-                    .id(jit)
-                    .expiryTime(expiryTime)
-                    .build();
-            invalidatedTokenRepository.save(invalidatedToken);
+            invalidateToken(signToken);
         }catch (AppException exception)
         {
             log.info("Token already exist");
@@ -206,4 +268,20 @@ public class AuthenticationService {
 
 
     }
+
+    /**
+     * Thu hồi token qua RevocationIndex (lưu DB + cập nhật bộ nhớ).
+     *
+     * ➤ expiryTime lưu lại là mốc iat + REFRESHABLE_DURATION (không phải exp),
+     *   vì verifyToken(..., true) vẫn chấp nhận token sau exp cho tới mốc này.
+     *   Sau mốc đó token bị từ chối ở mọi đường, nên có thể quên jti một cách an toàn.
+     */
+    private void invalidateToken(SignedJWT signedJWT) throws ParseException {
+        String jit = signedJWT.getJWTClaimsSet().getJWTID();
+        Date expiryTime = new Date(signedJWT.getJWTClaimsSet().getIssueTime()
+                .toInstant().plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS).toEpochMilli());
+        long start = System.nanoTime();
+        revocationIndex.revoke(jit, expiryTime);
+        metrics.record(Stage.REVOCATION_WRITE, start);
+    }
 }
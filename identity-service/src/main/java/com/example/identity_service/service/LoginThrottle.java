@@ -0,0 +1,155 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.util.UsernameNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Giới hạn số lần đăng nhập theo username và theo địa chỉ client, chặn TRƯỚC khi query user hay chạy BCrypt.
+ *
+ * ➤ Mỗi key có một token bucket dạng GCRA: trạng thái chỉ là một AtomicLong (thời điểm đến lý thuyết),
+ *   cập nhật bằng CAS, không khóa. rate = số lần mỗi phút, burst = số lần được dồn liền nhau.
+ * ➤ Sau free-failures lần sai liên tiếp, key bị chặn backoff-base ms, nhân đôi sau mỗi lần sai tiếp theo
+ *   (tối đa backoff-max). Đăng nhập đúng xóa bộ đếm của username; bộ đếm theo IP thì không,
+ *   để một tài khoản hợp lệ không xóa được dấu vết dò mật khẩu từ cùng địa chỉ.
+ * ➤ Bucket nằm trong Caffeine cache có giới hạn (max-keys) và tự bị bỏ khi không dùng quá idle-expire,
+ *   nên việc gửi username ngẫu nhiên không làm phình bộ nhớ.
+ * ➤ Địa chỉ client là request.getRemoteAddr(); sau load balancer cần bật server.forward-headers-strategy.
+ */
+@Component
+public class LoginThrottle {
+    private final Limit usernameLimit;
+    private final Limit addressLimit;
+    private final int freeFailures;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final Cache<String, Bucket> usernames;
+    private final Cache<String, Bucket> addresses;
+    private final Counter throttledByUsername;
+    private final Counter throttledByAddress;
+    private final Counter failures;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${login-throttle.username.rate}") int usernameRate,
+                         @Value("${login-throttle.username.burst}") int usernameBurst,
+                         @Value("${login-throttle.ip.rate}") int addressRate,
+                         @Value("${login-throttle.ip.burst}") int addressBurst,
+                         @Value("${login-throttle.free-failures}") int freeFailures,
+                         @Value("${login-throttle.backoff-base}") long backoffBaseMillis,
+                         @Value("${login-throttle.backoff-max}") long backoffMaxMillis,
+                         @Value("${login-throttle.max-keys}") long maxKeys,
+                         @Value("${login-throttle.idle-expire}") long idleExpireSeconds) {
+        this.usernameLimit = new Limit(usernameRate, usernameBurst);
+        this.addressLimit = new Limit(addressRate, addressBurst);
+        this.freeFailures = freeFailures;
+        this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(backoffBaseMillis);
+        this.backoffMaxNanos = TimeUnit.MILLISECONDS.toNanos(backoffMaxMillis);
+        this.usernames = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.addresses = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleExpireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.throttledByUsername = Counter.builder("auth.login.throttled").tag("key", "username")
+                .description("Login attempts rejected before any database or hashing work")
+                .register(meterRegistry);
+        this.throttledByAddress = Counter.builder("auth.login.throttled").tag("key", "ip")
+                .description("Login attempts rejected before any database or hashing work")
+                .register(meterRegistry);
+        this.failures = Counter.builder("auth.login.failures")
+                .description("Login attempts with an unknown username or a wrong password")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chạy login nếu cả username và địa chỉ còn lượt; ghi nhận kết quả để tính backoff.
+     * Bị chặn → AppException(TOO_MANY_LOGIN_ATTEMPTS), login không được gọi.
+     */
+    public <T> T attempt(String username, String clientAddress, Supplier<T> login) {
+        String usernameKey = username == null ? "" : UsernameNormalizer.normalize(username);
+        String addressKey = clientAddress == null ? "" : clientAddress;
+        long now = System.nanoTime();
+        Bucket user = usernames.get(usernameKey, key -> new Bucket(now));
+        Bucket address = addresses.get(addressKey, key -> new Bucket(now));
+
+        // Kiểm tra địa chỉ trước: một IP dò nhiều username không tiêu lượt của các username đó
+        if (!address.tryAcquire(now, addressLimit)) {
+            throttledByAddress.increment();
+            throw new AppException(ErrorCode.TOO_MANY_LOGIN_ATTEMPTS);
+        }
+        if (!user.tryAcquire(now, usernameLimit)) {
+            throttledByUsername.increment();
+            throw new AppException(ErrorCode.TOO_MANY_LOGIN_ATTEMPTS);
+        }
+
+        T result;
+        try {
+            result = login.get();
+        } catch (AppException e) {
+            if (e.getErrorCode() == ErrorCode.USER_NOT_EXISTED || e.getErrorCode() == ErrorCode.UNAUTHENTICATED) {
+                failures.increment();
+                long failedAt = System.nanoTime();
+                user.fail(failedAt);
+                address.fail(failedAt);
+            }
+            throw e;
+        }
+        user.failures.set(0);
+        return result;
+    }
+
+    private record Limit(long intervalNanos, long burstToleranceNanos) {
+        Limit(int ratePerMinute, int burst) {
+            this(TimeUnit.MINUTES.toNanos(1) / ratePerMinute,
+                    TimeUnit.MINUTES.toNanos(1) / ratePerMinute * (burst - 1));
+        }
+    }
+
+    private final class Bucket {
+        // Thời điểm đến lý thuyết (GCRA): còn lượt khi tat - now <= burst tolerance
+        final AtomicLong tat;
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicLong blockedUntil;
+
+        Bucket(long now) {
+            this.tat = new AtomicLong(now);
+            this.blockedUntil = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long now, Limit limit) {
+            if (now - blockedUntil.get() < 0)
+                return false;
+            while (true) {
+                long current = tat.get();
+                long base = current - now > 0 ? current : now;
+                if (base - now > limit.burstToleranceNanos())
+                    return false;
+                if (tat.compareAndSet(current, base + limit.intervalNanos()))
+                    return true;
+            }
+        }
+
+        void fail(long now) {
+            int failed = failures.incrementAndGet();
+            if (failed <= freeFailures)
+                return;
+            int doublings = Math.min(failed - freeFailures - 1, 30);
+            long backoff = Math.min(backoffBaseNanos << doublings, backoffMaxNanos);
+            long until = now + (backoff < 0 ? backoffMaxNanos : backoff);
+            blockedUntil.accumulateAndGet(until, (previous, next) -> next - previous > 0 ? next : previous);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Luồng riêng (bulkhead) cho việc băm/kiểm tra mật khẩu bằng BCrypt.
+ *
+ * ➤ BCrypt tốn hàng chục ms CPU mỗi lần; chạy trên thread của Tomcat thì một đợt login dồn dập
+ *   sẽ chiếm hết request thread, kéo theo /auth/introspect, /users/myInfo cũng chậm theo.
+ * ➤ Ở đây chỉ có password-hashing.threads thread (mặc định = số core) và hàng đợi có giới hạn.
+ *   Hàng đợi đầy → từ chối ngay với SERVICE_OVERLOADED (503), không để request chờ vô hạn.
+ * ➤ Thời gian chờ trong hàng đợi được ghi vào timer password.hashing.queue.
+ * ➤ encodeAll() dành cho bulk import: băm song song bằng ForkJoinPool riêng, không đi qua hàng đợi của login
+ *   (hàng đợi đó có giới hạn và timeout ngắn). Pool này chỉ có password-hashing.import-parallelism thread
+ *   (mặc định nửa số core), để một lần import không giành hết CPU của login và đẩy login vào SERVICE_OVERLOADED.
+ * ➤ Băm lại hash cũ (rehashInBackground) cũng chạy trên luồng này nhưng không ai chờ kết quả;
+ *   hàng đợi đầy thì bỏ qua, lần đăng nhập sau sẽ thử lại.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    private final ForkJoinPool bulkPool;
+    private final Timer queueTime;
+    private final Counter rejected;
+    private final long timeoutMillis;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${password-hashing.threads}") int threads,
+                                  @Value("${password-hashing.queue-capacity}") int queueCapacity,
+                                  @Value("${password-hashing.timeout}") long timeoutMillis,
+                                  @Value("${password-hashing.import-parallelism}") int importParallelism) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.bulkPool = new ForkJoinPool(importParallelism > 0
+                ? importParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing", Collections.emptyList());
+        this.queueTime = Timer.builder("password.hashing.queue")
+                .description("Time a password hashing task waits before a hashing thread picks it up")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Băm cả lô mật khẩu song song, giữ nguyên thứ tự đầu vào.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        return bulkPool.submit(() -> rawPasswords.parallelStream()
+                        .map(passwordEncoder::encode)
+                        .toList())
+                .join();
+    }
+
+    /**
+     * true nếu hash được tạo bằng thuật toán/cost cũ hơn cấu hình hiện tại.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Băm lại mật khẩu ở nền rồi giao hash mới cho onRehashed; request hiện tại không phải chờ.
+     */
+    public void rehashInBackground(CharSequence rawPassword, Consumer<String> onRehashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onRehashed.accept(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    log.warn("Background password rehash failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.debug("Password hashing queue full, skipping rehash");
+        }
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueTime.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new AppException(ErrorCode.SERVICE_OVERLOADED);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new AppException(ErrorCode.SERVICE_OVERLOADED);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.SERVICE_OVERLOADED);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+        bulkPool.shutdown();
+    }
+}
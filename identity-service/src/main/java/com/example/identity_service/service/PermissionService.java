@@ -18,10 +18,12 @@ import java.util.List;
 public class PermissionService {
     PermissionRepository permissionRepository;
     PermissionMapper permissionMapper;
+    ScopeRegistry scopeRegistry;
 
     public PermissionResponse create(PermissionRequest request){
         Permission permission = permissionMapper.toPermission(request);
         permission = permissionRepository.save(permission);
+        scopeRegistry.rebuild();
         return permissionMapper.toPermissionResponse(permission);
     }
 
@@ -32,5 +34,6 @@ public class PermissionService {
 
     public void deletePermision(String permission){
         permissionRepository.deleteById(permission);
+        scopeRegistry.rebuild();
     }
 }
@@ -0,0 +1,322 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.entity.RevocationEvent;
+import com.example.identity_service.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chỉ mục thu hồi token (jti) nằm trong bộ nhớ, đứng trước RevocationStore.
+ *
+ * ➤ exact: tập jti đã biết chắc bị thu hồi (jti → thời điểm hết hạn), có giới hạn kích thước
+ * ➤ blooms: mỗi bucket hết hạn (cùng cách chia với RevocationStore, revocation.bucket-seconds) một Bloom filter,
+ *   cùng nhau chứa MỌI jti chưa hết hạn (kể cả jti không còn chỗ trong exact).
+ *   Bucket hết hạn thì bỏ cả filter của nó (expire()), không đọc lại DB; chỉ resync() mới nạp lại từ revoked_token.
+ *
+ * Thứ tự kiểm tra: exact hit → bị thu hồi; miss ở mọi bloom → chắc chắn hợp lệ (không query DB);
+ * chỉ khi có bloom hit mà exact miss mới hỏi lại database.
+ *
+ * Đồng bộ giữa các node: jti do node khác thu hồi đến qua change feed revocation_event.
+ * ➤ pollFeed() đọc các event có seq > feedCursor mỗi revocation.feed.poll-interval ms và áp vào exact/bloom,
+ *   không quét lại bảng revoked_token.
+ * ➤ seq AUTO_INCREMENT có thể commit không theo thứ tự: gặp lỗ hổng thì vẫn áp các event phía sau
+ *   nhưng giữ nguyên cursor (lần sau đọc lại, áp lại không sao), tối đa revocation.feed.gap-timeout ms
+ *   rồi mới coi seq đó là bị bỏ qua (rollback).
+ * ➤ Không đọc được feed tới đầu quá revocation.feed.max-lag ms → bloom miss không còn đáng tin,
+ *   mọi lần kiểm tra đều hỏi database cho tới khi đọc lại được.
+ * ➤ Trễ quá revocation.feed.retention (event cần đọc có thể đã bị xóa) → resync(): nạp lại toàn bộ từ DB.
+ *   Ngoài lúc khởi động, đây là trường hợp duy nhất đọc toàn bộ revoked_token.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RevocationIndex {
+    RevocationStore revocationStore;
+
+    Map<String, Long> exact = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${revocation.bucket-seconds}")
+    protected long BUCKET_SECONDS;
+
+    // Mốc hết hạn xa nhất của một jti là now + refreshable-duration: số bucket còn sống cùng lúc
+    @NonFinal
+    @Value("${jwt.refreshable-duration}")
+    protected long REFRESHABLE_DURATION;
+
+    // expected-insertions và fpp tính cho toàn bộ index, chia đều cho các bucket còn sống
+    @NonFinal
+    @Value("${revocation.bloom.expected-insertions}")
+    protected long EXPECTED_INSERTIONS;
+
+    @NonFinal
+    @Value("${revocation.bloom.fpp}")
+    protected double FPP;
+
+    @NonFinal
+    @Value("${revocation.exact.max-entries}")
+    protected int EXACT_MAX_ENTRIES;
+
+    @NonFinal
+    @Value("${revocation.feed.batch-size}")
+    protected int FEED_BATCH_SIZE;
+
+    @NonFinal
+    @Value("${revocation.feed.max-lag}")
+    protected long FEED_MAX_LAG;
+
+    @NonFinal
+    @Value("${revocation.feed.gap-timeout}")
+    protected long FEED_GAP_TIMEOUT;
+
+    @NonFinal
+    @Value("${revocation.feed.retention}")
+    protected long FEED_RETENTION;
+
+    // bucket → Bloom filter các jti hết hạn trong bucket đó; resync() thay cả map
+    @NonFinal
+    volatile Map<Long, BloomFilter> blooms = new ConcurrentHashMap<>();
+
+    // Mọi event có seq <= feedCursor đã được áp dụng
+    @NonFinal
+    volatile long feedCursor;
+
+    // Thời điểm lần cuối đọc feed tới đầu
+    @NonFinal
+    volatile long caughtUpAt;
+
+    // Thời điểm thấy lỗ hổng ngay sau feedCursor, 0 = không có
+    @NonFinal
+    long gapSince;
+
+    // Các filter đang được resync() nạp lại; các jti mới thu hồi trong lúc nạp cũng phải được ghi vào đây
+    @NonFinal
+    volatile Map<Long, BloomFilter> building;
+
+    @PostConstruct
+    void init() {
+        resync();
+    }
+
+    /**
+     * Nạp lại toàn bộ từ các bản ghi còn hiệu lực trong DB: chỉ khi khởi động và khi feed trễ quá retention.
+     * Lấy seq hiện tại TRƯỚC khi nạp: dòng revoked_token được commit cùng transaction với event của nó,
+     * nên mọi event <= seq đều đã nằm trong lần nạp này.
+     */
+    synchronized void resync() {
+        long seq = revocationStore.latestEventSeq();
+        long now = System.currentTimeMillis();
+        exact.values().removeIf(expiry -> expiry <= now);
+
+        Map<Long, BloomFilter> next = new ConcurrentHashMap<>();
+        building = next;
+        try {
+            List<InvalidatedToken> tokens = revocationStore.findActive(new Date(now));
+            tokens.forEach(token -> {
+                String jti = token.getId().toString();
+                long expiry = token.getExpiryTime().getTime();
+                bucketBloom(next, expiry).put(jti);
+                if (exact.size() < EXACT_MAX_ENTRIES)
+                    exact.putIfAbsent(jti, expiry);
+            });
+            exact.forEach((jti, expiry) -> bucketBloom(next, expiry).put(jti));
+            blooms = next;
+            log.info("Revocation index reloaded: {} revoked tokens in {} buckets, {} held exactly",
+                    tokens.size(), next.size(), exact.size());
+        } finally {
+            building = null;
+        }
+        feedCursor = seq;
+        gapSince = 0;
+        caughtUpAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Thu hồi jti: lưu xuống RevocationStore rồi ghi nhận vào bộ nhớ.
+     */
+    public void revoke(String jti, Date expiryTime) {
+        revocationStore.save(jti, expiryTime);
+        remember(jti, expiryTime.getTime());
+    }
+
+    /**
+     * Đọc building TRƯỚC khi ghi bloom. Nếu lúc đó chưa có lần resync nào đang chạy thì lần resync sau
+     * chắc chắn thấy jti qua findActive (jti đã được lưu trước khi gọi hàm này); nếu đang có thì ghi vào cả hai.
+     * Đọc sau khi ghi bloom thì có thể lọt đúng lúc blooms vừa bị thay và building vừa bị xóa: jti mất khỏi cả hai.
+     */
+    private void remember(String jti, long expiry) {
+        Map<Long, BloomFilter> next = building;
+        if (exact.size() < EXACT_MAX_ENTRIES)
+            exact.put(jti, expiry);
+        BloomFilter.Key key = BloomFilter.keyOf(jti);
+        bucketBloom(blooms, expiry).put(key);
+        if (next != null)
+            bucketBloom(next, expiry).put(key);
+    }
+
+    private BloomFilter bucketBloom(Map<Long, BloomFilter> filters, long expiry) {
+        return filters.computeIfAbsent(expiry / 1000 / BUCKET_SECONDS, bucket -> {
+            long liveBuckets = REFRESHABLE_DURATION / BUCKET_SECONDS + 2;
+            return new BloomFilter(Math.max(1, EXPECTED_INSERTIONS / liveBuckets), FPP / liveBuckets);
+        });
+    }
+
+    // Tỉ lệ dương tính giả cộng dồn qua các bucket, nên mỗi filter được dựng với fpp / số bucket còn sống
+    private boolean mightBeRevoked(String jti) {
+        BloomFilter.Key key = BloomFilter.keyOf(jti);
+        for (BloomFilter filter : blooms.values()) {
+            if (filter.mightContain(key))
+                return true;
+        }
+        return false;
+    }
+
+    public boolean isRevoked(String jti) {
+        if (exact.containsKey(jti))
+            return true;
+        if (!mightBeRevoked(jti) && !isFeedStale())
+            return false;
+
+        // Bloom hit: có thể là dương tính giả, hoặc jti không còn chỗ trong exact (hoặc feed đang trễ)
+        Optional<Date> expiryTime;
+        try {
+            expiryTime = revocationStore.findExpiryTime(jti);
+        } catch (IllegalArgumentException e) {
+            // jti không phải UUID: không phải token do hệ thống phát hành
+            return true;
+        }
+        if (expiryTime.isPresent() && exact.size() < EXACT_MAX_ENTRIES)
+            exact.put(jti, expiryTime.get().getTime());
+        return expiryTime.isPresent();
+    }
+
+    /**
+     * Như isRevoked nhưng cho cả lô: các jti bloom hit mà exact miss được hỏi DB trong MỘT câu IN (...).
+     *
+     * @return các jti (trong jtis) đã bị thu hồi
+     */
+    public Set<String> revokedAmong(Collection<String> jtis) {
+        Set<String> revoked = new HashSet<>();
+        Map<UUID, String> lookup = new HashMap<>();
+        boolean stale = isFeedStale();
+        for (String jti : jtis) {
+            if (exact.containsKey(jti)) {
+                revoked.add(jti);
+            } else if (stale || mightBeRevoked(jti)) {
+                try {
+                    lookup.put(UUID.fromString(jti), jti);
+                } catch (IllegalArgumentException e) {
+                    // jti không phải UUID: không phải token do hệ thống phát hành
+                    revoked.add(jti);
+                }
+            }
+        }
+        if (lookup.isEmpty())
+            return revoked;
+
+        for (InvalidatedToken token : revocationStore.findAllById(lookup.keySet())) {
+            String jti = lookup.get(token.getId());
+            revoked.add(jti);
+            if (exact.size() < EXACT_MAX_ENTRIES)
+                exact.put(jti, token.getExpiryTime().getTime());
+        }
+        return revoked;
+    }
+
+    public boolean isFeedStale() {
+        return System.currentTimeMillis() - caughtUpAt > FEED_MAX_LAG;
+    }
+
+    /**
+     * Áp các event mới của change feed (kể cả của chính node này, áp lại không sao).
+     * Trễ quá revocation.feed.retention thì các event cần đọc có thể đã bị xóa: nạp lại từ đầu (resync).
+     */
+    @Scheduled(fixedDelayString = "${revocation.feed.poll-interval}",
+            initialDelayString = "${revocation.feed.poll-interval}",
+            timeUnit = TimeUnit.MILLISECONDS)
+    public synchronized void pollFeed() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (startedAt - caughtUpAt > FEED_RETENTION * 1000) {
+                log.warn("Revocation feed lagged beyond retention, reloading the revocation index");
+                resync();
+                return;
+            }
+            List<RevocationEvent> events;
+            boolean blocked;
+            do {
+                events = revocationStore.findEventsAfter(feedCursor, FEED_BATCH_SIZE);
+                blocked = apply(events, startedAt);
+            } while (!blocked && events.size() == FEED_BATCH_SIZE);
+            // Dừng ở lỗ hổng giữa một trang đầy thì chưa đọc hết feed
+            if (events.size() < FEED_BATCH_SIZE)
+                caughtUpAt = startedAt;
+        } catch (DataAccessException e) {
+            log.warn("Cannot read revocation feed: {}", e.getMessage());
+        }
+    }
+
+    // true khi cursor dừng ở một lỗ hổng seq chưa quá gap-timeout
+    private boolean apply(List<RevocationEvent> events, long now) {
+        boolean blocked = false;
+        for (RevocationEvent event : events) {
+            remember(event.getJti().toString(), event.getExpiryTime().getTime());
+            if (blocked)
+                continue;
+            if (event.getSeq() == feedCursor + 1) {
+                feedCursor = event.getSeq();
+                gapSince = 0;
+            } else if (gapSince == 0) {
+                gapSince = now;
+                blocked = true;
+            } else if (now - gapSince >= FEED_GAP_TIMEOUT) {
+                // seq bị bỏ qua hẳn (transaction rollback, AUTO_INCREMENT nhảy số)
+                feedCursor = event.getSeq();
+                gapSince = 0;
+            } else {
+                blocked = true;
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Loại bỏ jti đã hết hạn mà không đọc DB: dọn exact và bỏ Bloom filter của các bucket đã hết hạn hoàn toàn
+     * (bucket < bucket hiện tại, giống RevocationStore.purgeExpired).
+     * Cùng khóa với pollFeed/resync, nên không bỏ nhầm filter của một lần resync đang chạy.
+     */
+    @Scheduled(fixedDelayString = "${revocation.expire-interval}",
+            initialDelayString = "${revocation.expire-interval}",
+            timeUnit = TimeUnit.SECONDS)
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    synchronized void expire(long now) {
+        exact.values().removeIf(expiry -> expiry <= now);
+        long currentBucket = now / 1000 / BUCKET_SECONDS;
+        blooms.keySet().removeIf(bucket -> bucket < currentBucket);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.entity.RevocationEvent;
+import com.example.identity_service.repository.InvalidatedTokenRepository;
+import com.example.identity_service.repository.RevocationEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lưu trữ jti bị thu hồi trong bảng revoked_token.
+ *
+ * ➤ jti lưu dạng BINARY(16), mỗi dòng thuộc một bucket theo expiryTime
+ * ➤ save() không ghi ngay mà đi qua RevocationWriteBuffer (batch insert); các hàm đọc
+ *   gộp thêm những jti đang chờ ghi, nên kết quả giống như đã ghi đồng bộ
+ * ➤ revocation_event là change feed theo seq; các dòng quá revocation.feed.retention được xóa cùng job dọn dẹp
+ * ➤ Job định kỳ xóa các bucket đã hết hạn hoàn toàn, mỗi lần tối đa revocation.purge.batch-size dòng
+ *   trong một transaction ngắn, nên không giữ lock lâu trên bảng
+ */
+@Slf4j
+@Component
+public class RevocationStore {
+    private final InvalidatedTokenRepository invalidatedTokenRepository;
+    private final RevocationWriteBuffer writeBuffer;
+    private final RevocationEventRepository revocationEventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter purgedRows;
+    private final Timer purgeDuration;
+
+    @Value("${revocation.bucket-seconds}")
+    private long bucketSeconds;
+
+    @Value("${revocation.purge.batch-size}")
+    private int purgeBatchSize;
+
+    @Value("${revocation.feed.retention}")
+    private long feedRetention;
+
+    @Value("${jwt.valid-duration}")
+    private long validDuration;
+
+    @Value("${jwt.refreshable-duration}")
+    private long refreshableDuration;
+
+    public RevocationStore(InvalidatedTokenRepository invalidatedTokenRepository,
+                           RevocationWriteBuffer writeBuffer,
+                           RevocationEventRepository revocationEventRepository,
+                           JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.writeBuffer = writeBuffer;
+        this.revocationEventRepository = revocationEventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.purgedRows = Counter.builder("revocation.purge.rows")
+                .description("Revoked token rows removed by the expiry purge")
+                .register(meterRegistry);
+        this.purgeDuration = Timer.builder("revocation.purge.duration")
+                .description("Duration of one expiry purge run")
+                .register(meterRegistry);
+    }
+
+    public void save(String jti, Date expiryTime) {
+        writeBuffer.add(toEntity(UUID.fromString(jti), expiryTime));
+    }
+
+    public Optional<Date> findExpiryTime(String jti) {
+        UUID id = UUID.fromString(jti);
+        return writeBuffer.pending(id)
+                .or(() -> invalidatedTokenRepository.findById(id))
+                .map(InvalidatedToken::getExpiryTime);
+    }
+
+    // findAllById = một câu select ... where id in (...)
+    public List<InvalidatedToken> findAllById(Collection<UUID> jtis) {
+        List<InvalidatedToken> tokens = new ArrayList<>(invalidatedTokenRepository.findAllById(jtis));
+        jtis.forEach(jti -> writeBuffer.pending(jti).ifPresent(tokens::add));
+        return tokens;
+    }
+
+    public List<InvalidatedToken> findActive(Date now) {
+        List<InvalidatedToken> tokens = new ArrayList<>(invalidatedTokenRepository.findAllByExpiryTimeAfter(now));
+        writeBuffer.pending().stream()
+                .filter(token -> token.getExpiryTime().after(now))
+                .forEach(tokens::add);
+        return tokens;
+    }
+
+    public long latestEventSeq() {
+        return revocationEventRepository.findLatestSeq().orElse(0L);
+    }
+
+    public List<RevocationEvent> findEventsAfter(long seq, int limit) {
+        return revocationEventRepository.findBySeqGreaterThanOrderBySeq(seq, Limit.of(limit));
+    }
+
+    /**
+     * Xóa các bucket mà mọi dòng trong đó đã hết hạn (bucket < bucket hiện tại),
+     * và các dòng change feed cũ hơn revocation.feed.retention.
+     */
+    @Scheduled(fixedDelayString = "${revocation.purge.interval}",
+            initialDelayString = "${revocation.purge.interval}",
+            timeUnit = TimeUnit.SECONDS)
+    public void purgeExpired() {
+        long start = System.nanoTime();
+        long currentBucket = System.currentTimeMillis() / 1000 / bucketSeconds;
+        long purged = 0;
+
+        for (Long bucket : invalidatedTokenRepository.findBucketsBefore(currentBucket)) {
+            List<UUID> ids;
+            do {
+                ids = invalidatedTokenRepository.findIdsByBucket(bucket, Limit.of(purgeBatchSize));
+                if (!ids.isEmpty())
+                    purged += invalidatedTokenRepository.deleteAllByIdIn(ids);
+            } while (ids.size() == purgeBatchSize);
+        }
+
+        Date feedCutoff = new Date(System.currentTimeMillis() - feedRetention * 1000);
+        List<Long> seqs;
+        do {
+            seqs = revocationEventRepository.findSeqsCreatedBefore(feedCutoff, Limit.of(purgeBatchSize));
+            if (!seqs.isEmpty())
+                revocationEventRepository.deleteAllBySeqIn(seqs);
+        } while (seqs.size() == purgeBatchSize);
+
+        purgedRows.increment(purged);
+        purgeDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (purged > 0)
+            log.info("Purged {} expired revoked tokens", purged);
+    }
+
+    /**
+     * Chuyển dữ liệu từ bảng cũ invalidated_token (id varchar) sang revoked_token, chạy một lần khi khởi động.
+     *
+     * ➤ Một số dòng cũ lưu exp thay vì mốc hết hạn refresh, nên cộng thêm
+     *   (refreshable-duration - valid-duration) để không "quên" token sớm hơn mức cần thiết.
+     * ➤ Đọc tuần tự bằng cursor (fetch size) và ghi bằng batch insert ignore, mỗi lô revocation.purge.batch-size dòng:
+     *   không nạp cả bảng vào heap, không SELECT từng dòng như saveAll.
+     * ➤ Xong thì đổi tên bảng cũ thành invalidated_token_legacy để không chạy lại. Nhiều replica khởi động cùng lúc
+     *   thì cùng chép (insert ignore nên chép trùng không sao); replica nào thấy bảng đã bị đổi tên thì bỏ qua,
+     *   vì replica đổi tên chỉ làm vậy sau khi đã chép xong toàn bộ.
+     */
+    @PostConstruct
+    void migrateLegacyTable() {
+        long extension = (refreshableDuration - validDuration) * 1000;
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>(purgeBatchSize);
+        long[] migrated = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("select id, expiry_time from invalidated_token");
+                statement.setFetchSize(purgeBatchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                UUID id;
+                try {
+                    id = UUID.fromString(rs.getString("id"));
+                } catch (IllegalArgumentException e) {
+                    return;
+                }
+                long expiry = rs.getTimestamp("expiry_time").getTime() + extension;
+                if (expiry <= now)
+                    return;
+                InvalidatedToken token = toEntity(id, new Date(expiry));
+                batch.add(new Object[]{RevocationWriteBuffer.toBytes(id), new Timestamp(expiry), token.getBucket()});
+                if (batch.size() == purgeBatchSize)
+                    migrated[0] += insertLegacy(batch);
+            });
+            migrated[0] += insertLegacy(batch);
+        } catch (BadSqlGrammarException e) {
+            // Không có bảng cũ, hoặc replica khác vừa chép xong và đổi tên
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("alter table invalidated_token rename to invalidated_token_legacy");
+        } catch (BadSqlGrammarException e) {
+            log.info("invalidated_token was already renamed by another instance");
+        }
+        log.info("Migrated {} revoked tokens from invalidated_token", migrated[0]);
+    }
+
+    private int insertLegacy(List<Object[]> batch) {
+        if (batch.isEmpty())
+            return 0;
+        jdbcTemplate.batchUpdate(RevocationWriteBuffer.INSERT_SQL, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private InvalidatedToken toEntity(UUID id, Date expiryTime) {
+        return InvalidatedToken.builder()
+                .id(id)
+                .expiryTime(expiryTime)
+                .bucket(expiryTime.getTime() / 1000 / bucketSeconds)
+                .build();
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi jti bị thu hồi xuống bảng revoked_token theo kiểu write-behind.
+ *
+ * ➤ logout/refresh chỉ đưa jti vào hàng đợi có giới hạn rồi trả về ngay (RevocationIndex đã cập nhật bộ nhớ từ trước).
+ * ➤ Luồng revocation-writer gom tối đa revocation.write-behind.batch-size dòng, hoặc những gì có được
+ *   sau revocation.write-behind.flush-interval ms, rồi ghi bằng một batch insert
+ *   (rewriteBatchedStatements → một câu INSERT nhiều dòng).
+ * ➤ Backpressure: hàng đợi đầy quá offer-timeout (DB đang chậm) → request tự ghi đồng bộ,
+ *   nên request chậm lại theo tốc độ của DB chứ không bỏ mất jti nào.
+ * ➤ Tắt ứng dụng: @PreDestroy ghi hết phần còn trong hàng đợi trước khi DataSource bị đóng.
+ * ➤ jti chưa kịp ghi vẫn tra được qua pending(), để RevocationStore không trả lời sai trong lúc chờ flush.
+ * ➤ Mỗi batch đồng thời được thêm vào revocation_event (change feed) để các node khác cập nhật bộ nhớ;
+ *   hai câu INSERT nằm trong cùng một transaction, nên không có jti nào vào revoked_token mà thiếu event.
+ */
+@Slf4j
+@Component
+public class RevocationWriteBuffer {
+    // jti trùng (hai lần logout cùng lúc) được bỏ qua thay vì làm hỏng cả batch
+    static final String INSERT_SQL = "insert ignore into revoked_token (id, expiry_time, bucket) values (?, ?, ?)";
+    // Change feed cho các node khác (RevocationIndex.pollFeed); cùng transaction với revoked_token,
+    // nên event và dòng revoked_token của nó cùng được commit hoặc cùng bị rollback
+    static final String EVENT_SQL = "insert into revocation_event (jti, expiry_time, created_at) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<InvalidatedToken> queue;
+    private final Map<UUID, InvalidatedToken> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final Timer flushDuration;
+    private final Counter flushFailures;
+    private final Counter syncWrites;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public RevocationWriteBuffer(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${revocation.write-behind.capacity}") int capacity,
+                                 @Value("${revocation.write-behind.batch-size}") int batchSize,
+                                 @Value("${revocation.write-behind.flush-interval}") long flushIntervalMillis,
+                                 @Value("${revocation.write-behind.offer-timeout}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        Gauge.builder("revocation.write-behind.pending", pending, Map::size)
+                .description("Revoked tokens accepted but not yet written to the database")
+                .register(meterRegistry);
+        this.flushDuration = Timer.builder("revocation.write-behind.flush")
+                .description("Duration of one batch insert into revoked_token")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("revocation.write-behind.failures")
+                .description("Batch inserts into revoked_token that failed and were retried")
+                .register(meterRegistry);
+        this.syncWrites = Counter.builder("revocation.write-behind.sync")
+                .description("Revoked tokens written synchronously because the buffer was full or closed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("revocation-writer").daemon(true).start(this::run);
+    }
+
+    public void add(InvalidatedToken token) {
+        pending.put(token.getId(), token);
+        try {
+            if (running && queue.offer(token, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                // Đã tắt ngay sau khi offer: nếu phần drain lúc tắt chưa lấy được thì tự ghi
+                if (running || !queue.remove(token))
+                    return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        syncWrites.increment();
+        insert(List.of(token));
+        pending.remove(token.getId(), token);
+    }
+
+    public Optional<InvalidatedToken> pending(UUID jti) {
+        return Optional.ofNullable(pending.get(jti));
+    }
+
+    public Collection<InvalidatedToken> pending() {
+        return List.copyOf(pending.values());
+    }
+
+    private void run() {
+        List<InvalidatedToken> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                InvalidatedToken first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    InvalidatedToken next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!batch.isEmpty())
+                flush(batch);
+        }
+    }
+
+    /**
+     * Ghi một batch; lỗi thì thử lại với backoff tăng dần (hàng đợi đầy dần và request chuyển sang ghi đồng bộ).
+     * Khi đang tắt thì chỉ thử thêm một lần.
+     * Writer bị interrupt trong lúc chờ → dừng hẳn thay vì thử tiếp (mọi sleep sau đó ném lỗi ngay, backoff thành
+     * vòng lặp nóng): batch được trả lại hàng đợi để stop() ghi nốt, request mới chuyển sang ghi đồng bộ.
+     */
+    private void flush(List<InvalidatedToken> batch) {
+        long backoffMillis = 10;
+        while (true) {
+            try {
+                insert(batch);
+                batch.forEach(token -> pending.remove(token.getId(), token));
+                return;
+            } catch (DataAccessException e) {
+                flushFailures.increment();
+                if (!running) {
+                    log.error("Lost {} revoked tokens: database unavailable during shutdown", batch.size(), e);
+                    return;
+                }
+                log.warn("Batch insert of {} revoked tokens failed, retrying in {} ms", batch.size(), backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    requeue(batch);
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 1000);
+            }
+        }
+    }
+
+    private void requeue(List<InvalidatedToken> batch) {
+        for (InvalidatedToken token : batch) {
+            if (!queue.offer(token))
+                log.error("Lost revoked token {}: writer interrupted and buffer full", token.getId());
+        }
+        log.warn("Revocation writer interrupted, {} revoked tokens left for shutdown", queue.size());
+    }
+
+    private void insert(List<InvalidatedToken> batch) {
+        List<Object[]> rows = batch.stream()
+                .map(token -> new Object[]{
+                        toBytes(token.getId()),
+                        new Timestamp(token.getExpiryTime().getTime()),
+                        token.getBucket()})
+                .toList();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> events = batch.stream()
+                .map(token -> new Object[]{
+                        toBytes(token.getId()),
+                        new Timestamp(token.getExpiryTime().getTime()),
+                        now})
+                .toList();
+        flushDuration.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            jdbcTemplate.batchUpdate(EVENT_SQL, events);
+        }));
+    }
+
+    // Cùng thứ tự byte Hibernate dùng cho UUID lưu BINARY(16)
+    static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Không interrupt: writer tự thoát sau tối đa một flush-interval, batch đang ghi dở không bị cắt ngang
+        running = false;
+        writer.join();
+
+        List<InvalidatedToken> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize)
+            flush(rest.subList(from, Math.min(from + batchSize, rest.size())));
+        if (!rest.isEmpty())
+            log.info("Flushed {} buffered revoked tokens on shutdown", rest.size());
+    }
+}
@@ -22,6 +22,7 @@ public class RoleService {
     RoleRepository roleRepository;
     PermissionRepository permissionRepository;
     RoleMapper roleMapper;
+    ScopeRegistry scopeRegistry;
 
     public RoleResponse create(RoleRequest request){
         var role = roleMapper.toRole(request);
@@ -29,6 +30,7 @@ public class RoleService {
         role.setPermission(new HashSet<>(permissions));
 
         roleRepository.save(role);
+        scopeRegistry.rebuild();
         return roleMapper.toRoleResponse(role);
     }
 
@@ -39,5 +41,6 @@ public class RoleService {
 
     public void delete(String role){
         roleRepository.deleteById(role);
+        scopeRegistry.rebuild();
     }
 }
@@ -0,0 +1,102 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bảng role → đoạn scope ("ROLE_x perm1 perm2 ...") dựng sẵn trong bộ nhớ.
+ *
+ * ➤ Bảng là Map bất biến, được thay nguyên khối mỗi lần rebuild(), nên đọc không cần khóa.
+ * ➤ rebuild() được gọi lúc khởi động, sau mỗi lần RoleService/PermissionService thay đổi dữ liệu,
+ *   và định kỳ (scope.rebuild-interval) để nhận thay đổi từ node khác.
+ * ➤ Phát hành token chỉ còn ghép các đoạn đã dựng sẵn, bỏ permission trùng giữa các role.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ScopeRegistry {
+    RoleRepository roleRepository;
+
+    ReentrantLock rebuildLock = new ReentrantLock();
+
+    @NonFinal
+    volatile Map<String, RoleScope> roleScopes = Map.of();
+
+    /**
+     * @param scope  đoạn scope đã nối sẵn, dùng thẳng khi user chỉ có một role
+     * @param tokens các phần tử của scope, dùng khi phải gộp nhiều role
+     */
+    record RoleScope(String scope, List<String> tokens) {
+        static RoleScope of(List<String> tokens) {
+            return new RoleScope(String.join(" ", tokens), List.copyOf(tokens));
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${scope.rebuild-interval}",
+            initialDelayString = "${scope.rebuild-interval}",
+            timeUnit = TimeUnit.SECONDS)
+    public void rebuild() {
+        // ReentrantLock thay cho synchronized: query DB trong lúc giữ monitor sẽ ghim (pin) virtual thread vào carrier
+        rebuildLock.lock();
+        try {
+            doRebuild();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void doRebuild() {
+        Map<String, RoleScope> next = new HashMap<>();
+        for (Role role : roleRepository.findAllWithPermissions()) {
+            Set<String> tokens = new LinkedHashSet<>();
+            tokens.add("ROLE_" + role.getName());
+            if (!CollectionUtils.isEmpty(role.getPermission()))
+                role.getPermission().stream()
+                        .map(Permission::getName)
+                        .sorted()
+                        .forEach(tokens::add);
+            next.put(role.getName(), RoleScope.of(new ArrayList<>(tokens)));
+        }
+        roleScopes = Map.copyOf(next);
+        log.debug("Scope registry rebuilt: {} roles", next.size());
+    }
+
+    public String scopeOf(Collection<String> roleNames) {
+        if (roleNames.isEmpty())
+            return "";
+        Map<String, RoleScope> table = roleScopes;
+        if (roleNames.size() == 1)
+            return lookup(table, roleNames.iterator().next()).scope();
+
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String roleName : roleNames)
+            tokens.addAll(lookup(table, roleName).tokens());
+        return String.join(" ", tokens);
+    }
+
+    // Role vừa được tạo ở node khác, chưa kịp rebuild: chỉ cấp ROLE_x cho tới lần rebuild kế tiếp
+    private RoleScope lookup(Map<String, RoleScope> table, String roleName) {
+        RoleScope roleScope = table.get(roleName);
+        return roleScope != null ? roleScope : RoleScope.of(List.of("ROLE_" + roleName));
+    }
+}
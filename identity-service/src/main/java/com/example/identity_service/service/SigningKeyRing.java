@@ -0,0 +1,283 @@
+package com.example.identity_service.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tập khóa ký JWT (HS512 hoặc ES256), mỗi khóa gắn với một kid.
+ *
+ * ➤ Khóa của chu kỳ n được dẫn xuất từ jwt.signerKey: HMAC-SHA512(signerKey, "jwt-key/" + n),
+ *   với n = thời điểm hiện tại / jwt.key-rotation.period. Mọi node (và mỗi lần restart)
+ *   đều tính ra cùng một khóa, nên việc xoay khóa không cần chia sẻ trạng thái hay restart.
+ * ➤ GIỚI HẠN: đây chỉ là xoay khóa dẫn xuất, không phải xoay bí mật. Ai có jwt.signerKey đều tính được khóa
+ *   của MỌI chu kỳ, quá khứ lẫn tương lai, nên xoay khóa không bảo vệ gì khi signerKey bị lộ. Nó chỉ giới hạn
+ *   thiệt hại khi lộ một khóa dẫn xuất (HMAC một chiều: không suy ra được signerKey hay khóa chu kỳ khác).
+ *   signerKey bị lộ thì phải đổi signerKey (mọi token HS512 đang lưu hành mất hiệu lực). Cần xoay bí mật thật
+ *   thì dùng jwt.algorithm = ES256 với jwt.ec.jwk lấy từ kho bí mật và thay khóa theo quy trình vận hành.
+ * ➤ Token mới luôn mang kid của chu kỳ hiện tại trong JWSHeader; khi verify, khóa được chọn
+ *   bằng kid (HashMap lookup). Khóa cũ được giữ đủ lâu để token cũ verify được tới khi hết hạn refresh.
+ * ➤ Token không có kid (phát hành trước khi có key ring) được verify bằng chính jwt.signerKey.
+ * ➤ jwt.algorithm = ES256: token mới được ký bằng khóa EC P-256 trong jwt.ec.jwk, public key được công bố
+ *   qua publicJwkSet() (GET /.well-known/jwks.json) để service khác tự verify, không cần signerKey
+ *   và không phải gọi /auth/introspect. Token HS512 đã phát hành vẫn verify được tới khi hết hạn.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing {
+    private static final String MAC_ALGORITHM = "HmacSHA512";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    @Value("${jwt.signerKey}")
+    private String signerKey;
+
+    @Value("${jwt.key-rotation.period}")
+    private long rotationPeriod;
+
+    @Value("${jwt.refreshable-duration}")
+    private long refreshableDuration;
+
+    @Value("${jwt.algorithm}")
+    private String algorithm = "HS512";
+
+    // JWK (JSON) của khóa EC P-256, gồm cả phần private "d"; để trống thì sinh khóa mới mỗi lần khởi động
+    @Value("${jwt.ec.jwk}")
+    private String ecJwk = "";
+
+    private SigningKey legacyKey;
+
+    // null khi jwt.algorithm = HS512
+    private EcSigningKey ecKey;
+
+    // Bản chụp bất biến, thay thế nguyên khối khi xoay khóa
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey activeKey;
+
+    @PostConstruct
+    void init() {
+        legacyKey = new SigningKey(null, new SecretKeySpec(signerKey.getBytes(), MAC_ALGORITHM));
+        rotate();
+        if (JWSAlgorithm.ES256.getName().equals(algorithm))
+            ecKey = new EcSigningKey(loadEcKey());
+        else if (!JWSAlgorithm.HS512.getName().equals(algorithm))
+            throw new IllegalStateException("Unsupported jwt.algorithm " + algorithm + ", expected HS512 or ES256");
+    }
+
+    private ECKey loadEcKey() {
+        try {
+            if (ecJwk == null || ecJwk.isBlank()) {
+                // Mỗi node/mỗi lần restart một khóa khác: chỉ dùng cho môi trường một node
+                log.warn("jwt.ec.jwk is empty, generated an ephemeral ES256 key; tokens will not survive a restart");
+                return new ECKeyGenerator(Curve.P_256).keyIDFromThumbprint(true).generate();
+            }
+            ECKey key = ECKey.parse(ecJwk);
+            if (!Curve.P_256.equals(key.getCurve()) || !key.isPrivate())
+                throw new IllegalStateException("jwt.ec.jwk must be a private P-256 key");
+            return key.getKeyID() != null ? key
+                    : new ECKey.Builder(key).keyID(key.computeThumbprint().toString()).build();
+        } catch (JOSEException | ParseException e) {
+            throw new IllegalStateException("Cannot load jwt.ec.jwk", e);
+        }
+    }
+
+    /**
+     * Kiểm tra mỗi phút xem đã sang chu kỳ khóa mới chưa.
+     */
+    @Scheduled(fixedDelay = 60, initialDelay = 60, timeUnit = TimeUnit.SECONDS)
+    public void rotate() {
+        long current = System.currentTimeMillis() / 1000 / rotationPeriod;
+        if (activeKey != null && activeKey.kid.equals(kid(current)))
+            return;
+
+        // Giữ khóa của các chu kỳ mà token còn có thể được dùng (refresh), cộng thêm chu kỳ kế tiếp
+        // để node có đồng hồ chạy chậm vẫn verify được token do node khác vừa ký bằng khóa mới
+        long retained = (refreshableDuration + rotationPeriod - 1) / rotationPeriod;
+        Map<String, SigningKey> next = new HashMap<>();
+        for (long period = current - retained; period <= current + 1; period++) {
+            String kid = kid(period);
+            SigningKey existing = keys.get(kid);
+            next.put(kid, existing != null ? existing : new SigningKey(kid, derive(period)));
+        }
+        keys = Map.copyOf(next);
+        activeKey = next.get(kid(current));
+        log.info("Signing key rotated, active kid={}, {} keys retained", activeKey.kid, keys.size());
+    }
+
+    /**
+     * Ký claims bằng khóa hiện hành, trả về JWT dạng compact serialization.
+     */
+    public String sign(JWTClaimsSet claims) {
+        return ecKey != null ? ecKey.sign(claims) : activeKey.sign(claims);
+    }
+
+    public boolean verify(SignedJWT signedJWT) {
+        String kid = signedJWT.getHeader().getKeyID();
+        if (JWSAlgorithm.ES256.equals(signedJWT.getHeader().getAlgorithm()))
+            return ecKey != null && ecKey.kid.equals(kid) && ecKey.verify(signedJWT);
+        if (!JWSAlgorithm.HS512.equals(signedJWT.getHeader().getAlgorithm()))
+            return false;
+        SigningKey key = (kid == null) ? legacyKey : keys.get(kid);
+        return key != null && key.verify(signedJWT);
+    }
+
+    /**
+     * Public key dùng để verify token (chỉ có khi jwt.algorithm = ES256), không bao giờ chứa phần private.
+     */
+    public JWKSet publicJwkSet() {
+        return ecKey == null ? new JWKSet() : new JWKSet(ecKey.publicJwk);
+    }
+
+    // Chỉ phụ thuộc signerKey và số chu kỳ: xem GIỚI HẠN ở Javadoc của class
+    private SecretKeySpec derive(long period) {
+        Mac mac = legacyKey.borrow();
+        try {
+            byte[] material = mac.doFinal(("jwt-key/" + period).getBytes(StandardCharsets.US_ASCII));
+            return new SecretKeySpec(material, MAC_ALGORITHM);
+        } finally {
+            legacyKey.release(mac);
+        }
+    }
+
+    private static String kid(long period) {
+        return "k" + period;
+    }
+
+    /**
+     * Khóa ES256: header đã encode sẵn; chữ ký ECDSA (DER) từ JCA được đổi sang dạng R || S 64 byte của JWS.
+     * Signature không thread-safe và không clone được, nên mỗi lần ký tạo một instance (rẻ so với phép nhân điểm EC).
+     */
+    private static final class EcSigningKey {
+        final String kid;
+        final String encodedHeader;
+        final PrivateKey privateKey;
+        final JWK publicJwk;
+        final JWSVerifier verifier;
+
+        EcSigningKey(ECKey key) {
+            this.kid = key.getKeyID();
+            this.encodedHeader = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(kid).build()
+                    .toBase64URL().toString() + ".";
+            try {
+                this.privateKey = key.toPrivateKey();
+                this.verifier = new ECDSAVerifier(key.toECPublicKey());
+            } catch (JOSEException e) {
+                throw new IllegalStateException("Cannot initialize ES256 key " + kid, e);
+            }
+            this.publicJwk = key.toPublicJWK();
+        }
+
+        String sign(JWTClaimsSet claims) {
+            String signingInput = encodedHeader
+                    + BASE64_URL.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                Signature signature = Signature.getInstance("SHA256withECDSA");
+                signature.initSign(privateKey);
+                signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+                byte[] jose = ECDSA.transcodeSignatureToConcat(signature.sign(),
+                        ECDSA.getSignatureByteArrayLength(JWSAlgorithm.ES256));
+                return signingInput + "." + BASE64_URL.encodeToString(jose);
+            } catch (GeneralSecurityException | JOSEException e) {
+                throw new IllegalStateException("Cannot sign with ES256 key " + kid, e);
+            }
+        }
+
+        boolean verify(SignedJWT signedJWT) {
+            try {
+                return verifier.verify(signedJWT.getHeader(), signedJWT.getSigningInput(), signedJWT.getSignature());
+            } catch (JOSEException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Một khóa HS512 đã khởi tạo sẵn: header đã encode và pool các Mac đã init, dùng chung giữa các thread.
+     */
+    private static final class SigningKey {
+        final String kid;
+        final String encodedHeader;
+        final Mac prototype;
+        final Queue<Mac> pool = new ConcurrentLinkedQueue<>();
+
+        SigningKey(String kid, SecretKeySpec key) {
+            this.kid = kid;
+            this.encodedHeader = new JWSHeader.Builder(JWSAlgorithm.HS512).keyID(kid).build()
+                    .toBase64URL().toString() + ".";
+            try {
+                this.prototype = Mac.getInstance(MAC_ALGORITHM);
+                this.prototype.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize signing key " + kid, e);
+            }
+        }
+
+        String sign(JWTClaimsSet claims) {
+            String signingInput = encodedHeader
+                    + BASE64_URL.encodeToString(claims.toString().getBytes(StandardCharsets.UTF_8));
+            Mac mac = borrow();
+            try {
+                byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+                return signingInput + "." + BASE64_URL.encodeToString(signature);
+            } finally {
+                release(mac);
+            }
+        }
+
+        boolean verify(SignedJWT signedJWT) {
+            Mac mac = borrow();
+            try {
+                byte[] expected = mac.doFinal(signedJWT.getSigningInput());
+                return MessageDigest.isEqual(expected, signedJWT.getSignature().decode());
+            } finally {
+                release(mac);
+            }
+        }
+
+        // Mac không thread-safe: mỗi lần dùng mượn một instance từ pool, clone từ prototype khi pool rỗng
+        Mac borrow() {
+            Mac mac = pool.poll();
+            if (mac != null)
+                return mac;
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void release(Mac mac) {
+            mac.reset();
+            pool.offer(mac);
+        }
+    }
+}
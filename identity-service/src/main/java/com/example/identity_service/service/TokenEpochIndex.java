@@ -0,0 +1,81 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.util.UsernameNormalizer;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mốc "token phát hành trước T đều vô hiệu" của từng user (cột user.tokens_valid_after), giữ bản sao trong bộ nhớ.
+ *
+ * ➤ Thu hồi mọi phiên của một user = ghi MỘT mốc, không cần biết jti nào đang lưu hành
+ *   và không thêm dòng nào vào invalidated_token.
+ * ➤ Kiểm tra token chỉ đọc map (usernameKey → epoch second), không query DB.
+ * ➤ Mốc cũ hơn REFRESHABLE_DURATION không còn tác dụng (token phát hành trước đó đã bị từ chối),
+ *   nên map chỉ giữ các mốc gần đây và được nạp lại định kỳ để thấy mốc do instance khác ghi.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TokenEpochIndex {
+    UserRepository userRepository;
+
+    Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${jwt.refreshable-duration}")
+    protected long REFRESHABLE_DURATION;
+
+    @PostConstruct
+    void init() {
+        refresh();
+    }
+
+    /**
+     * Vô hiệu mọi token đã phát hành cho user.
+     * iat chỉ có độ chính xác tới giây, nên mốc được làm tròn LÊN giây kế tiếp:
+     * token đăng nhập lại trong phần còn lại của giây hiện tại cũng bị từ chối.
+     *
+     * @return mốc mới, token có iat trước mốc này bị từ chối
+     */
+    public Instant revokeAll(User user) {
+        Instant validAfter = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        userRepository.updateTokensValidAfter(user.getId(), validAfter);
+        epochs.merge(UsernameNormalizer.normalize(user.getUsername()), validAfter.getEpochSecond(), Math::max);
+        return validAfter;
+    }
+
+    public boolean isStale(String subject, Date issueTime) {
+        if (epochs.isEmpty())
+            return false;
+        Long epoch = epochs.get(UsernameNormalizer.normalize(subject));
+        return epoch != null && (issueTime == null || issueTime.getTime() / 1000 < epoch);
+    }
+
+    @Scheduled(fixedDelayString = "${token-epoch.refresh-interval}",
+            initialDelayString = "${token-epoch.refresh-interval}",
+            timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        Instant since = Instant.now().minusSeconds(REFRESHABLE_DURATION);
+        userRepository.findByTokensValidAfterAfter(since).forEach(epoch ->
+                epochs.merge(epoch.getUsernameKey(), epoch.getTokensValidAfter().getEpochSecond(), Math::max));
+        epochs.values().removeIf(epoch -> epoch <= since.getEpochSecond());
+        log.debug("Token epochs refreshed: {} users", epochs.size());
+    }
+}
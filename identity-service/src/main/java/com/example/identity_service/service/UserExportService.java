@@ -0,0 +1,92 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.response.UserExportResponse;
+import com.example.identity_service.dto.response.UserExportRow;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Xuất toàn bộ user dưới dạng NDJSON (mỗi dòng một JSON object).
+ *
+ * ➤ Đọc bằng Stream từ cursor JDBC và ghi ngay ra response: trong heap chỉ có user đang ghi dở,
+ *   nên bộ nhớ không tăng theo kích thước bảng.
+ * ➤ Role được join sẵn trong cùng truy vấn (mỗi role một dòng), ở đây gộp các dòng liền nhau theo id.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserExportService {
+    UserRepository userRepository;
+    ObjectMapper objectMapper;
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        long exported = 0;
+        // Không flush sau mỗi dòng; để buffer của response tự đẩy ra theo từng khối
+        try (JsonGenerator generator = objectMapper.createGenerator(out)
+                     .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+             Stream<UserExportRow> rows = userRepository.streamExportRows();
+             SequenceWriter writer = objectMapper.writerFor(UserExportResponse.class)
+                     .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                     .withRootValueSeparator("\n")
+                     .writeValues(generator)) {
+            Iterator<UserExportRow> iterator = rows.iterator();
+            UserExportResponse current = null;
+            UUID currentId = null;
+            while (iterator.hasNext()) {
+                UserExportRow row = iterator.next();
+                if (current == null || !currentId.equals(row.getId())) {
+                    if (current != null) {
+                        writer.write(current);
+                        exported++;
+                    }
+                    current = toResponse(row);
+                    currentId = row.getId();
+                }
+                if (row.getRoleName() != null)
+                    current.getRoles().add(row.getRoleName());
+            }
+            if (current != null) {
+                writer.write(current);
+                exported++;
+            }
+        }
+        if (exported > 0)
+            out.write('\n');
+        out.flush();
+        log.info("Exported {} users", exported);
+        return exported;
+    }
+
+    private UserExportResponse toResponse(UserExportRow row) {
+        List<String> roles = new ArrayList<>(1);
+        return UserExportResponse.builder()
+                .id(row.getId().toString())
+                .username(row.getUsername())
+                .firstName(row.getFirstName())
+                .lastName(row.getLastName())
+                .doB(row.getDoB())
+                .roles(roles)
+                .build();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.request.UserCreationRequest;
+import com.example.identity_service.dto.response.UserImportResponse;
+import com.example.identity_service.dto.response.UserImportRowResponse;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.exception.ErrorResponses;
+import com.example.identity_service.mapper.UserMapper;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.util.UsernameNormalizer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Import hàng loạt user từ NDJSON (mỗi dòng một UserCreationRequest).
+ *
+ * ➤ Đọc và xử lý theo lô user-import.chunk-size dòng, nên file lớn không nằm hết trong heap.
+ * ➤ Mỗi dòng được validate bằng chính các rule của POST /users (@Size, @DobConstraint).
+ * ➤ Mỗi lô: một câu IN kiểm tra username đã tồn tại, băm mật khẩu song song (tối đa password-hashing.import-parallelism thread),
+ *   rồi insert trong một transaction ngắn bằng JDBC batch (hibernate.jdbc.batch_size).
+ * ➤ Lô bị DB từ chối (ví dụ username vừa được tạo song song, vướng unique username_key) → thử lại từng dòng,
+ *   mỗi dòng một transaction, để chỉ những dòng lỗi bị báo lỗi (kèm số dòng) chứ không mất cả lô.
+ * ➤ Trả về kết quả cho từng dòng: id nếu tạo thành công, hoặc mã lỗi ErrorCode.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class UserImportService {
+    UserRepository userRepository;
+    UserMapper userMapper;
+    PasswordHashingService passwordHashingService;
+    ObjectMapper objectMapper;
+    Validator validator;
+    TransactionTemplate transactionTemplate;
+    EntityManager entityManager;
+
+    @NonFinal
+    @Value("${user-import.chunk-size}")
+    protected int CHUNK_SIZE;
+
+    private record PendingRow(int line, UserCreationRequest request) {}
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public UserImportResponse importUsers(InputStream in) throws IOException {
+        List<UserImportRowResponse> results = new ArrayList<>();
+        // username_key đã gặp trong file, để bắt trùng giữa các dòng của chính file import
+        Set<String> seen = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String json;
+            int line = 0;
+            while ((json = reader.readLine()) != null) {
+                line++;
+                if (json.isBlank())
+                    continue;
+
+                UserCreationRequest request;
+                try {
+                    request = objectMapper.readValue(json, UserCreationRequest.class);
+                } catch (JsonProcessingException e) {
+                    results.add(failure(line, null, ErrorCode.INVALID_IMPORT_ROW, ErrorCode.INVALID_IMPORT_ROW.getMessage()));
+                    continue;
+                }
+
+                UserImportRowResponse invalid = validate(line, request);
+                if (invalid != null) {
+                    results.add(invalid);
+                    continue;
+                }
+                if (!seen.add(UsernameNormalizer.normalize(request.getUsername()))) {
+                    results.add(failure(line, request.getUsername(), ErrorCode.USER_EXISTED, ErrorCode.USER_EXISTED.getMessage()));
+                    continue;
+                }
+
+                chunk.add(new PendingRow(line, request));
+                if (chunk.size() == CHUNK_SIZE) {
+                    results.addAll(insertChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty())
+            results.addAll(insertChunk(chunk));
+
+        results.sort(Comparator.comparingInt(UserImportRowResponse::getLine));
+        int created = (int) results.stream().filter(row -> row.getId() != null).count();
+        log.info("Imported {} of {} users", created, results.size());
+        return UserImportResponse.builder()
+                .total(results.size())
+                .created(created)
+                .failed(results.size() - created)
+                .rows(results)
+                .build();
+    }
+
+    private List<UserImportRowResponse> insertChunk(List<PendingRow> chunk) {
+        List<UserImportRowResponse> results = new ArrayList<>(chunk.size());
+
+        Set<String> existing = new HashSet<>(userRepository.findExistingUsernameKeys(
+                chunk.stream().map(row -> UsernameNormalizer.normalize(row.request().getUsername())).toList()));
+        List<PendingRow> accepted = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk) {
+            if (existing.contains(UsernameNormalizer.normalize(row.request().getUsername())))
+                results.add(failure(row.line(), row.request().getUsername(), ErrorCode.USER_EXISTED, ErrorCode.USER_EXISTED.getMessage()));
+            else
+                accepted.add(row);
+        }
+        if (accepted.isEmpty())
+            return results;
+
+        List<String> hashes = passwordHashingService.encodeAll(
+                accepted.stream().map(row -> row.request().getPassword()).toList());
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++)
+            users.add(toUser(accepted.get(i), hashes.get(i)));
+
+        try {
+            save(users);
+        } catch (RuntimeException e) {
+            log.warn("Import chunk of {} users (lines {}-{}) failed, retrying row by row: {}", users.size(),
+                    accepted.getFirst().line(), accepted.getLast().line(), e.getMessage());
+            for (int i = 0; i < accepted.size(); i++)
+                results.add(insertRow(accepted.get(i), hashes.get(i)));
+            return results;
+        }
+
+        for (int i = 0; i < accepted.size(); i++)
+            results.add(created(accepted.get(i), users.get(i)));
+        return results;
+    }
+
+    // Entity mới cho mỗi lần thử: entity của lô đã rollback có thể đã mang id
+    private UserImportRowResponse insertRow(PendingRow row, String hash) {
+        User user = toUser(row, hash);
+        try {
+            save(List.of(user));
+            return created(row, user);
+        } catch (DataIntegrityViolationException e) {
+            return failure(row.line(), row.request().getUsername(), ErrorCode.USER_EXISTED, ErrorCode.USER_EXISTED.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Import of line {} failed", row.line(), e);
+            return failure(row.line(), row.request().getUsername(),
+                    ErrorCode.UNCATEGORIZED_EXCEPTION, ErrorCode.UNCATEGORIZED_EXCEPTION.getMessage());
+        }
+    }
+
+    private User toUser(PendingRow row, String hash) {
+        User user = userMapper.toUser(row.request());
+        user.setPassword(hash);
+        return user;
+    }
+
+    private void save(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.saveAll(users);
+            entityManager.flush();
+            // Không giữ entity của lô cũ trong persistence context (open-in-view giữ EntityManager cả request)
+            entityManager.clear();
+        });
+    }
+
+    private static UserImportRowResponse created(PendingRow row, User user) {
+        return UserImportRowResponse.builder()
+                .line(row.line())
+                .username(user.getUsername())
+                .id(user.getId().toString())
+                .code(1000)
+                .build();
+    }
+
+    // Cùng cách ánh xạ message → ErrorCode như GlobalExceptionHandler.handlingValidation (ErrorResponses)
+    private UserImportRowResponse validate(int line, UserCreationRequest request) {
+        // @Size bỏ qua null, nhưng không thể tạo user thiếu username/password → kiểm tra như chuỗi rỗng
+        Set<ConstraintViolation<UserCreationRequest>> violations =
+                request.getUsername() == null ? validator.validateValue(UserCreationRequest.class, "username", "")
+                : request.getPassword() == null ? validator.validateValue(UserCreationRequest.class, "password", "")
+                : validator.validate(request);
+        if (violations.isEmpty())
+            return null;
+
+        ConstraintViolation<UserCreationRequest> violation = violations.iterator().next();
+        ErrorCode errorCode = ErrorResponses.codeOf(violation.getMessage());
+        return failure(line, request.getUsername(), errorCode,
+                ErrorResponses.message(errorCode, violation.getConstraintDescriptor().getAttributes()));
+    }
+
+    private static UserImportRowResponse failure(int line, String username, ErrorCode errorCode, String message) {
+        return UserImportRowResponse.builder()
+                .line(line)
+                .username(username)
+                .code(errorCode.getCode())
+                .message(message)
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.identity_service.service;
 
 import com.example.identity_service.dto.request.UserCreationRequest;
 import com.example.identity_service.dto.request.UserUpdateRequest;
+import com.example.identity_service.dto.response.CursorPageResponse;
 import com.example.identity_service.dto.response.UserResponse;
 import com.example.identity_service.entity.User;
 import com.example.identity_service.enums.Role;
@@ -10,21 +11,25 @@ import com.example.identity_service.exception.ErrorCode;
 import com.example.identity_service.mapper.UserMapper;
 import com.example.identity_service.repository.RoleRepository;
 import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.util.UsernameNormalizer;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -33,12 +38,30 @@ import java.util.Optional;
 public class UserService {
     UserRepository userRepository;
     UserMapper userMapper;
-    PasswordEncoder passwordEncoder;
+    PasswordHashingService passwordHashingService;
     RoleRepository roleRepository;
+    UsernameRegistry usernameRegistry;
+    TokenEpochIndex tokenEpochIndex;
 
+    private static final char CURSOR_SEPARATOR = '\0';
+
+    @NonFinal
+    @Value("${pagination.max-page-size}")
+    protected int MAX_PAGE_SIZE;
+
+    /**
+     * Tên vừa biết chắc đã có người dùng thì UsernameRegistry từ chối ngay, không chạm DB.
+     * Còn lại kiểm tra trên unique index username_key TRƯỚC khi băm password, để đăng ký trùng tên
+     * không tốn một lần BCrypt; unique index vẫn là chốt chặn cuối cho hai request đăng ký cùng lúc (saveUnique).
+     */
     public UserResponse createUser(UserCreationRequest request){
         log.info("Service: create user");
-        if(userRepository.existsByUsername(request.getUsername())){
+        String usernameKey = UsernameNormalizer.normalize(request.getUsername());
+        if(usernameRegistry.isKnownTaken(usernameKey)){
+            throw new AppException(ErrorCode.USER_EXISTED);
+        }
+        if(userRepository.existsByUsernameKey(usernameKey)){
+            usernameRegistry.markTaken(usernameKey);
             throw new AppException(ErrorCode.USER_EXISTED);
         }
         User user = userMapper.toUser(request);
@@ -47,14 +70,16 @@ public class UserService {
         roles.add(Role.USER.name());
 //        user.setRoles(roles);
 
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        return userMapper.toUserResponse(userRepository.save(user));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
+        user = saveUnique(user, usernameKey);
+        usernameRegistry.markTaken(usernameKey);
+        return userMapper.toUserResponse(user);
     }
 
     public UserResponse getMyInfo(){
         var context = SecurityContextHolder.getContext();
         String name = context.getAuthentication().getName();
-        User user = userRepository.findByUsername(name)
+        User user = userRepository.findWithRolesByUsernameKey(UsernameNormalizer.normalize(name))
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
         return userMapper.toUserResponse(user);
     }
@@ -72,10 +97,56 @@ public class UserService {
      */
     @PreAuthorize("hasRole('ADMIN')")
 //    @PreAuthorize("hasAuthority(``)")
-    public List<UserResponse> getAllUser() {
-        return userRepository.findAll().stream()
-                .map(userMapper::toUserResponse)
+    public CursorPageResponse<UserResponse> getAllUser(String cursor, int size, String username, String name) {
+        int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+        PageKey after = cursor == null ? new PageKey(null, null) : decodeCursor(cursor);
+
+        // Lấy thừa 1 dòng để biết còn trang sau hay không
+        List<UUID> ids = userRepository.findPageIds(after.username(), after.id(),
+                toPrefixPattern(username), toPrefixPattern(name), Limit.of(pageSize + 1));
+        boolean hasNext = ids.size() > pageSize;
+        if (hasNext)
+            ids = ids.subList(0, pageSize);
+
+        // Trang 2 bước: khóa theo index trước, rồi nạp user + roles + permissions cho đúng các id đó.
+        // Giữ đúng thứ tự DB đã trả về (UUID.compareTo so sánh có dấu, khác thứ tự byte của BINARY(16))
+        Map<UUID, Integer> position = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++)
+            position.put(ids.get(i), i);
+        List<User> users = userRepository.findAllWithRolesByIdIn(ids).stream()
+                .sorted(Comparator.comparing(user -> position.get(user.getId())))
                 .toList();
+
+        return CursorPageResponse.<UserResponse>builder()
+                .items(users.stream().map(userMapper::toUserResponse).toList())
+                .nextCursor(hasNext ? encodeCursor(users.getLast()) : null)
+                .build();
+    }
+
+    // Cursor = base64url("username\0id") của dòng cuối trang; client chỉ cần gửi lại nguyên văn
+    private static String encodeCursor(User user) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((user.getUsername() + CURSOR_SEPARATOR + user.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record PageKey(String username, UUID id) {}
+
+    private static PageKey decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(CURSOR_SEPARATOR);
+            if (separator < 0)
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            return new PageKey(key.substring(0, separator), UUID.fromString(key.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    private static String toPrefixPattern(String prefix) {
+        if (!StringUtils.hasText(prefix))
+            return null;
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
     }
 
     /**
@@ -95,33 +166,64 @@ public class UserService {
     @PostAuthorize("returnObject.username == authentication.name")
     public UserResponse getUser(String userId) {
         return userMapper.toUserResponse(
-                userRepository.findById(userId)
+                userRepository.findById(parseId(userId))
                         .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))
         );
     }
 
 
     public User updateUser(String userId, UserUpdateRequest request){
-        User user = userRepository.findById(userId)
+        User user = userRepository.findById(parseId(userId))
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-
-        request.setPassword(passwordEncoder.encode(request.getPassword()));
-        System.out.println("password: " + request.getPassword());
+        request.setPassword(passwordHashingService.encode(request.getPassword()));
 
         userMapper.updateUser(user,request);
 
         var roles = roleRepository.findAllById(request.getRoles());
         user.setRoles(new HashSet<>(roles));
 
-        return userRepository.save(user);
+        return saveUnique(user, UsernameNormalizer.normalize(user.getUsername()));
 
     }
 
     public User deleteUser(String userId){
-        User user = userRepository.findById(userId)
+        User user = userRepository.findById(parseId(userId))
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-        userRepository.deleteById(userId);
+        userRepository.delete(user);
+        usernameRegistry.forget(user.getUsernameKey());
         return user;
     }
+
+    /**
+     * "Đăng xuất mọi nơi": vô hiệu mọi token đã phát hành cho user (ví dụ khi tài khoản bị lộ), chỉ dành cho ADMIN.
+     * Chỉ ghi một mốc thời gian lên user, không cần biết jti nào đang lưu hành.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public Instant revokeAllTokens(String userId) {
+        User user = userRepository.findById(parseId(userId))
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        Instant validAfter = tokenEpochIndex.revokeAll(user);
+        log.info("Revoked all tokens of user {} issued before {}", user.getId(), validAfter);
+        return validAfter;
+    }
+
+    private User saveUnique(User user, String usernameKey) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!UsernameRegistry.isDuplicateUsername(e))
+                throw e;
+            usernameRegistry.markTaken(usernameKey);
+            throw new AppException(ErrorCode.USER_EXISTED);
+        }
+    }
+
+    // id không đúng định dạng UUID thì chắc chắn không có user nào mang id đó
+    private static UUID parseId(String userId) {
+        try {
+            return UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.USER_NOT_EXISTED);
+        }
+    }
 }
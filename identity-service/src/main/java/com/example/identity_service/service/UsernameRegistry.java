@@ -0,0 +1,119 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Quản lý tính duy nhất của username.
+ *
+ * ➤ Trùng username do unique index uk_user_username_key quyết định. UserService vẫn kiểm tra trước trên index
+ *   (existsByUsernameKey) để không băm password cho tên đã có, nhưng chỉ insert mới chặn được hai request cùng lúc.
+ * ➤ taken: tập các username_key vừa biết chắc đã có người dùng (vừa tạo, hoặc vừa bị constraint từ chối).
+ *   Khi nhiều request đăng ký cùng một tên dồn dập, chỉ request đầu tiên chạm tới DB.
+ *   Đây là cache chính xác chứ không phải Bloom filter trên toàn bộ username_key: Bloom filter báo "có thể đã có"
+ *   với cả tên còn trống (dương tính giả) nên không dùng để từ chối được, còn "chắc chắn chưa có" thì vẫn phải insert.
+ *   Tên chưa từng gặp (cold miss) vì vậy luôn đi tới DB.
+ *   Mục hết hạn sau username.taken-cache.expire để theo kịp user bị xóa ở node khác.
+ * ➤ Khi khởi động, điền username_key cho các dòng cũ (cột mới được ddl-auto thêm vào với giá trị null),
+ *   qua entity User để key được chuẩn hóa đúng như lúc lưu (User.normalizeUsername).
+ */
+@Slf4j
+@Component
+public class UsernameRegistry {
+    private static final String UNIQUE_INDEX = "uk_user_username_key";
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Boolean> taken;
+
+    public UsernameRegistry(UserRepository userRepository, PlatformTransactionManager transactionManager,
+                            @Value("${username.taken-cache.max-size}") long maxSize,
+                            @Value("${username.taken-cache.expire}") long expireSeconds) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taken = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .build();
+    }
+
+    public boolean isKnownTaken(String usernameKey) {
+        return taken.getIfPresent(usernameKey) != null;
+    }
+
+    public void markTaken(String usernameKey) {
+        taken.put(usernameKey, Boolean.TRUE);
+    }
+
+    public void forget(String usernameKey) {
+        taken.invalidate(usernameKey);
+    }
+
+    /**
+     * true nếu lỗi đến từ unique index của username_key (chứ không phải constraint khác).
+     */
+    public static boolean isDuplicateUsername(DataIntegrityViolationException exception) {
+        Throwable cause = exception.getCause();
+        String constraint = cause instanceof ConstraintViolationException violation
+                ? violation.getConstraintName()
+                : exception.getMessage();
+        return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(UNIQUE_INDEX);
+    }
+
+    /**
+     * Điền username_key cho các dòng chưa có, theo từng lô (keyset theo id), mỗi lô một transaction.
+     * Dòng nào trùng key với dòng khác (ví dụ "John" và "john") thì bỏ qua và ghi log để xử lý tay.
+     */
+    @PostConstruct
+    void backfillUsernameKeys() {
+        long filled = 0;
+        UUID after = new UUID(0, 0);
+        while (true) {
+            List<UUID> ids = userRepository.findByUsernameKeyIsNullAndIdGreaterThanOrderById(
+                    after, Limit.of(BACKFILL_BATCH_SIZE)).stream().map(User::getId).toList();
+            if (ids.isEmpty())
+                break;
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> normalize(ids));
+                filled += ids.size();
+            } catch (DataIntegrityViolationException e) {
+                // Có dòng trùng trong lô: làm lại từng dòng để chỉ bỏ qua đúng các dòng trùng
+                for (UUID id : ids) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> normalize(List.of(id)));
+                        filled++;
+                    } catch (DataIntegrityViolationException duplicate) {
+                        log.error("Cannot backfill username_key for user {}: it collides with another username", id);
+                    }
+                }
+            }
+            after = ids.getLast();
+        }
+        if (filled > 0)
+            log.info("Backfilled username_key for {} users", filled);
+    }
+
+    // Đọc lại trong transaction hiện tại rồi flush, để lỗi unique index nổ ra ngay tại đây
+    private void normalize(List<UUID> ids) {
+        userRepository.findAllById(ids).forEach(User::normalizeUsername);
+        userRepository.flush();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.identity_service.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter cho chuỗi, an toàn khi nhiều thread cùng đọc/ghi.
+ *
+ * ➤ mightContain() == false  → chắc chắn chưa từng put()
+ * ➤ mightContain() == true   → có thể đã put(), tỉ lệ dương tính giả ~ fpp
+ *
+ * Không hỗ trợ xóa phần tử: muốn "quên" thì dựng filter mới và thay thế.
+ * Tra cùng một giá trị trên nhiều filter thì tính Key một lần (keyOf) rồi dùng lại, khỏi băm chuỗi nhiều lần.
+ */
+public final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    public BloomFilter(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0)
+            expectedInsertions = 1;
+        if (fpp <= 0 || fpp >= 1)
+            throw new IllegalArgumentException("fpp must be in (0, 1)");
+
+        // m = -n * ln(p) / (ln 2)^2 ; k = m / n * ln 2
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.bitSize = m;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact(m / 64));
+    }
+
+    public record Key(long hash1, long hash2) {
+    }
+
+    public static Key keyOf(String value) {
+        return new Key(hash(value, 0x9E3779B97F4A7C15L), hash(value, 0xC2B2AE3D27D4EB4FL));
+    }
+
+    public void put(String value) {
+        put(keyOf(value));
+    }
+
+    public void put(Key key) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(key.hash1() + i * key.hash2(), bitSize);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(index);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(index, current, current | mask))
+                    break;
+                current = bits.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        return mightContain(keyOf(value));
+    }
+
+    public boolean mightContain(Key key) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(key.hash1() + i * key.hash2(), bitSize);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static long hash(String value, long seed) {
+        long h = seed ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0xFF51AFD7ED558CCDL;
+            h = Long.rotateLeft(h, 31);
+        }
+        // fmix64 của MurmurHash3 để trộn đều các bit
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.identity_service.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Dạng chuẩn của username dùng để tra cứu và kiểm tra trùng (cột username_key, unique).
+ *
+ * ➤ NFKC gộp các ký tự trông giống nhau (ví dụ chữ full-width) về một dạng,
+ *   sau đó hạ chữ thường theo Locale.ROOT: "John", "JOHN", "ｊｏｈｎ" đều là "john".
+ * ➤ Cột username vẫn giữ nguyên cách viết người dùng nhập, dùng làm subject của token.
+ */
+public final class UsernameNormalizer {
+    private UsernameNormalizer() {
+    }
+
+    public static String normalize(String username) {
+        if (username == null)
+            return null;
+        return Normalizer.normalize(username, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.identity_service.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+
+/**
+ * Cho Hibernate sinh khóa chính bằng UuidV7: @UuidGenerator(algorithm = UuidV7Generator.class)
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return UuidV7.generate();
+    }
+}
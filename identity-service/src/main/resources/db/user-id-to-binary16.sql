@@ -0,0 +1,51 @@
+-- Chuyển user.id (và user_roles.user_id) từ VARCHAR(255) sang BINARY(16) — MySQL 8.
+--
+-- ➤ ddl-auto: update không đổi kiểu cột đã có, nên phải chạy script này MỘT LẦN trước khi deploy
+--   bản dùng UUIDv7, trong thời gian bảo trì (không có ghi vào bảng user).
+-- ➤ id cũ (UUID v4) được giữ nguyên giá trị, chỉ đổi cách lưu: UUID_TO_BIN(id) không swap,
+--   đúng thứ tự byte mà Hibernate dùng khi đọc/ghi UUID dạng BINARY. Token đang lưu hành không bị ảnh hưởng
+--   vì subject là username.
+-- ➤ id mới sinh bằng UUIDv7 nên luôn lớn hơn và được chèn vào cuối clustered index.
+
+-- 1. Bỏ khóa ngoại user_roles.user_id → user.id (tên do Hibernate sinh, nên tra trong information_schema)
+SET @fk = (SELECT constraint_name FROM information_schema.key_column_usage
+           WHERE table_schema = DATABASE() AND table_name = 'user_roles'
+             AND column_name = 'user_id' AND referenced_table_name = 'user');
+SET @sql = CONCAT('ALTER TABLE user_roles DROP FOREIGN KEY ', @fk);
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. Ghi giá trị nhị phân vào cột tạm
+ALTER TABLE `user` ADD COLUMN id_bin BINARY(16) NULL;
+UPDATE `user` SET id_bin = UUID_TO_BIN(id);
+
+ALTER TABLE user_roles ADD COLUMN user_id_bin BINARY(16) NULL;
+UPDATE user_roles ur JOIN `user` u ON u.id = ur.user_id SET ur.user_id_bin = u.id_bin;
+
+-- 3. Thay cột cũ bằng cột nhị phân, dựng lại khóa chính và index keyset (username, id).
+--    idx_user_username chỉ có từ bản keyset pagination trở đi: DB nâng cấp thẳng từ bản cũ hơn chưa có index này.
+SET @has_username_index = (SELECT COUNT(*) FROM information_schema.statistics
+                           WHERE table_schema = DATABASE() AND table_name = 'user'
+                             AND index_name = 'idx_user_username');
+SET @sql = IF(@has_username_index > 0, 'ALTER TABLE `user` DROP INDEX idx_user_username', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE `user`
+    DROP PRIMARY KEY,
+    DROP COLUMN id,
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (id),
+    ADD INDEX idx_user_username (username, id);
+
+ALTER TABLE user_roles
+    DROP PRIMARY KEY,
+    DROP COLUMN user_id,
+    CHANGE COLUMN user_id_bin user_id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (user_id, roles_name);
+
+-- 4. Gắn lại khóa ngoại
+ALTER TABLE user_roles
+    ADD CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES `user` (id);
@@ -0,0 +1,16 @@
+-- Index cho user.tokens_valid_after — MySQL 8.
+--
+-- ➤ TokenEpochIndex.refresh chạy findByTokensValidAfterAfter(now - thời hạn refresh) mỗi 30 s trên mọi node;
+--   không có index thì mỗi lần là một lần quét toàn bảng user.
+-- ➤ ddl-auto: update cũng tạo index này lúc khởi động, nhưng trên bảng lớn nên chạy script trước khi deploy:
+--   tạo online (ALGORITHM=INPLACE, LOCK=NONE), không chặn ghi vào bảng user. Chạy lại nhiều lần vẫn an toàn.
+
+SET @has_index = (SELECT COUNT(*) FROM information_schema.statistics
+                  WHERE table_schema = DATABASE() AND table_name = 'user'
+                    AND index_name = 'idx_user_tokens_valid_after');
+SET @sql = IF(@has_index = 0,
+              'ALTER TABLE `user` ADD INDEX idx_user_tokens_valid_after (tokens_valid_after), ALGORITHM=INPLACE, LOCK=NONE',
+              'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
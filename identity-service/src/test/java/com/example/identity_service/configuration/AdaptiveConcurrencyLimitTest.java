@@ -0,0 +1,94 @@
+package com.example.identity_service.configuration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // Thời gian giả lập, bắt đầu từ lúc tạo limit
+    private long clock;
+
+    private AdaptiveConcurrencyLimit limit(int initialLimit) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, 2, 100, 100, 5, 1.5, 0.5, 0.5);
+        clock = System.nanoTime();
+        return limit;
+    }
+
+    // Một cửa sổ gồm `concurrent` request chạy đồng thời, cùng độ trễ; release cuối cùng đóng cửa sổ và tính lại limit
+    private void window(AdaptiveConcurrencyLimit limit, int concurrent, long latencyMillis, boolean overloaded) {
+        for (int i = 0; i < concurrent; i++)
+            Assertions.assertThat(limit.tryAcquire()).isTrue();
+        long windowEnd = clock + WINDOW_NANOS;
+        long latency = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        for (int i = 0; i < concurrent; i++) {
+            long end = i == concurrent - 1 ? windowEnd : windowEnd - 1;
+            limit.release(end - latency, end, overloaded);
+        }
+        clock = windowEnd;
+    }
+
+    private void window(AdaptiveConcurrencyLimit limit, long latencyMillis, boolean overloaded) {
+        window(limit, limit.getLimit(), latencyMillis, overloaded);
+    }
+
+    @Test
+    void tryAcquire_limitReached_rejectsUntilReleased() {
+        AdaptiveConcurrencyLimit limit = limit(3);
+
+        for (int i = 0; i < 3; i++)
+            Assertions.assertThat(limit.tryAcquire()).isTrue();
+        Assertions.assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release(clock, clock + 1, false);
+        Assertions.assertThat(limit.tryAcquire()).isTrue();
+        Assertions.assertThat(limit.getInflight()).isEqualTo(3);
+    }
+
+    @Test
+    void release_steadyLatency_growsLimit() {
+        AdaptiveConcurrencyLimit limit = limit(10);
+
+        for (int i = 0; i < 10; i++)
+            window(limit, 20, false);
+
+        Assertions.assertThat(limit.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void release_latencyRises_shrinksLimit() {
+        AdaptiveConcurrencyLimit limit = limit(40);
+        for (int i = 0; i < 5; i++)
+            window(limit, 20, false);
+        int before = limit.getLimit();
+
+        // DB chậm: độ trễ gấp 10 lần mức dài hạn
+        for (int i = 0; i < 3; i++)
+            window(limit, 200, false);
+
+        Assertions.assertThat(limit.getLimit()).isLessThan(before);
+    }
+
+    @Test
+    void release_serverErrors_backOffMultiplicatively() {
+        AdaptiveConcurrencyLimit limit = limit(40);
+
+        window(limit, 20, true);
+        window(limit, 20, true);
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void release_lowLoad_doesNotGrowLimit() {
+        AdaptiveConcurrencyLimit limit = limit(40);
+
+        // Chỉ 5 request cùng lúc trên limit 40: không biết được sức chứa thật
+        for (int i = 0; i < 10; i++)
+            window(limit, 5, 20, false);
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(40);
+    }
+}
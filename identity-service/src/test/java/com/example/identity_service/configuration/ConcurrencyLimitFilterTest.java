@@ -0,0 +1,78 @@
+package com.example.identity_service.configuration;
+
+import com.example.identity_service.configuration.ConcurrencyLimitFilter.Group;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.exception.ErrorResponses;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void initData() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(meterRegistry,
+                () -> new AdaptiveConcurrencyLimit(1, 1, 10, 100, 10, 1.5, 0.2, 0.9), 2);
+    }
+
+    private MockHttpServletResponse call(String path) throws Exception {
+        return call("POST", path);
+    }
+
+    private MockHttpServletResponse call(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/identity" + path);
+        request.setContextPath("/identity");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void groupOf_mapsEndpointGroups() {
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("POST", "/auth/token")).isEqualTo(Group.AUTH);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("POST", "/auth/introspect/batch")).isEqualTo(Group.INTROSPECT);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("POST", "/users")).isEqualTo(Group.USER);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("GET", "/users/myInfo")).isEqualTo(Group.USER);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("GET", "/users")).isEqualTo(Group.ADMIN);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("DELETE", "/users/42")).isEqualTo(Group.ADMIN);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("GET", "/roles")).isEqualTo(Group.ADMIN);
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("GET", "/usersearch")).isNull();
+        Assertions.assertThat(ConcurrencyLimitFilter.groupOf("GET", "/actuator/prometheus")).isNull();
+    }
+
+    @Test
+    void doFilter_limitReached_shedsWithRetryAfter() throws Exception {
+        // Chiếm chỗ duy nhất của nhóm auth như một request đang chạy
+        Assertions.assertThat(filter.limit(Group.AUTH).tryAcquire()).isTrue();
+
+        MockHttpServletResponse shed = call("/auth/token");
+
+        Assertions.assertThat(shed.getStatus()).isEqualTo(503);
+        Assertions.assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        Assertions.assertThat(shed.getContentAsByteArray()).isEqualTo(ErrorResponses.body(ErrorCode.SERVICE_OVERLOADED));
+        Assertions.assertThat(meterRegistry.get("http.concurrency.rejected").tag("group", "auth").counter().count())
+                .isEqualTo(1);
+
+        // Nhóm khác và endpoint ngoài nhóm không bị ảnh hưởng
+        Assertions.assertThat(call("/auth/introspect").getStatus()).isEqualTo(200);
+        Assertions.assertThat(call("/actuator/health").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void doFilter_releasesSlotAfterRequest() throws Exception {
+        Assertions.assertThat(call("GET", "/users").getStatus()).isEqualTo(200);
+        Assertions.assertThat(call("GET", "/users").getStatus()).isEqualTo(200);
+
+        Assertions.assertThat(filter.limit(Group.ADMIN).getInflight()).isZero();
+        Assertions.assertThat(meterRegistry.get("http.concurrency.limit").tag("group", "admin").gauge().value())
+                .isEqualTo(1);
+    }
+}
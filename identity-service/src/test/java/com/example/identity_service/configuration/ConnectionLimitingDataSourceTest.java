@@ -0,0 +1,65 @@
+package com.example.identity_service.configuration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.mockito.Mockito.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    void getConnection_limitReached_timesOutUntilClosed() throws Exception {
+        DataSource target = Mockito.mock(DataSource.class);
+        Connection raw = Mockito.mock(Connection.class);
+        when(target.getConnection()).thenReturn(raw);
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+        Connection connection = dataSource.getConnection();
+        Assertions.assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class);
+
+        connection.close();
+        connection.close();
+        verify(raw, times(1)).close();
+        Assertions.assertThat(dataSource.availablePermits()).isEqualTo(1);
+        Assertions.assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void getConnection_targetFails_releasesPermit() throws Exception {
+        DataSource target = Mockito.mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 1, 50);
+
+        Assertions.assertThatThrownBy(dataSource::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessage("pool exhausted");
+        Assertions.assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_proxyIdentity_notForwardedToTarget() throws Exception {
+        DataSource target = Mockito.mock(DataSource.class);
+        Connection raw = Mockito.mock(Connection.class);
+        when(target.getConnection()).thenReturn(raw);
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(target, 2, 50);
+
+        Connection connection = dataSource.getConnection();
+        Connection other = dataSource.getConnection();
+
+        Assertions.assertThat(connection.equals(connection)).isTrue();
+        Assertions.assertThat(connection.equals(other)).isFalse();
+        Assertions.assertThat(connection.hashCode()).isEqualTo(System.identityHashCode(connection));
+        Assertions.assertThat(connection.toString()).contains(raw.toString());
+        // unwrap không đi vòng qua phần trả permit khi close()
+        Assertions.assertThat(connection.unwrap(Connection.class)).isSameAs(connection);
+        Assertions.assertThat(connection.isWrapperFor(Connection.class)).isTrue();
+        verify(raw, never()).unwrap(any());
+        verify(raw, never()).isWrapperFor(any());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.identity_service.configuration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordEncoderConfigTest {
+
+    @Test
+    void calibrate_staysWithinBounds() {
+        Assertions.assertThat(PasswordEncoderConfig.calibrate(0, 4, 6)).isEqualTo(4);
+        Assertions.assertThat(PasswordEncoderConfig.calibrate(Long.MAX_VALUE / 4, 4, 6)).isEqualTo(6);
+    }
+
+    @Test
+    void passwordEncoder_legacyHash_matchesAndNeedsUpgrade() {
+        PasswordEncoder passwordEncoder = PasswordEncoderConfig.passwordEncoder(0, 5, 5);
+        String legacy = new BCryptPasswordEncoder(4).encode("12345678");
+
+        Assertions.assertThat(passwordEncoder.matches("12345678", legacy)).isTrue();
+        Assertions.assertThat(passwordEncoder.upgradeEncoding(legacy)).isTrue();
+        Assertions.assertThat(passwordEncoder.upgradeEncoding("{bcrypt}" + legacy)).isTrue();
+    }
+
+    @Test
+    void passwordEncoder_currentHash_delegatingFormat() {
+        PasswordEncoder passwordEncoder = PasswordEncoderConfig.passwordEncoder(0, 5, 5);
+        String encoded = passwordEncoder.encode("12345678");
+
+        Assertions.assertThat(encoded).startsWith("{bcrypt}$2a$05$");
+        Assertions.assertThat(passwordEncoder.matches("12345678", encoded)).isTrue();
+        Assertions.assertThat(passwordEncoder.upgradeEncoding(encoded)).isFalse();
+    }
+}
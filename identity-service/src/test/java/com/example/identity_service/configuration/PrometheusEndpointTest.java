@@ -0,0 +1,51 @@
+package com.example.identity_service.configuration;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("embedded")
+@AutoConfigureObservability // Spring Boot tắt Prometheus registry trong test nếu không có annotation này
+class PrometheusEndpointTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void scrape_managementPort_exportsAuthHikariAndHibernateMeters() throws Exception {
+        HttpResponse<String> response = get(managementPort, "/actuator/prometheus");
+
+        Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        Assertions.assertThat(response.body())
+                .contains("auth_stage_seconds_bucket")
+                .contains("auth_introspect_total")
+                .contains("hikaricp_connections_active")
+                .contains("hibernate_query_executions");
+    }
+
+    @Test
+    void publicPort_onlyHealthProbes() throws Exception {
+        Assertions.assertThat(get(port, "/identity/actuator/prometheus").statusCode()).isNotEqualTo(200);
+        Assertions.assertThat(get(port, "/identity/readyz").statusCode()).isEqualTo(200);
+        Assertions.assertThat(get(port, "/identity/livez").statusCode()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.identity_service.controller;
+
+import com.example.identity_service.load.SyntheticDataSeeder;
+import com.jayway.jsonpath.JsonPath;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.hamcrest.Matchers.containsString;
+
+@SpringBootTest(properties = "jwt.algorithm=ES256")
+@ActiveProfiles("embedded")
+@AutoConfigureMockMvc
+class JwksControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void jwks_cacheableAndUnchanged_notModified() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/.well-known/jwks.json"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=300")))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CACHE_CONTROL, containsString("public")))
+                .andExpect(MockMvcResultMatchers.jsonPath("keys[0].kty").value("EC"))
+                .andExpect(MockMvcResultMatchers.jsonPath("keys[0].d").doesNotExist())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/.well-known/jwks.json")
+                        .header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
+    @Test
+    void token_verifiedLocallyWithPublishedKey() throws Exception {
+        String content = """
+                {"username": "%s", "password": "password"}
+                """.formatted(SyntheticDataSeeder.ADMIN_USERNAME);
+        String token = JsonPath.read(mockMvc.perform(MockMvcRequestBuilders.post("/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.result.token");
+        JWKSet jwks = JWKSet.parse(mockMvc.perform(MockMvcRequestBuilders.get("/.well-known/jwks.json"))
+                .andReturn().getResponse().getContentAsString());
+
+        // Giống resource server cấu hình jwk-set-uri: chọn public key theo kid, không gọi lại identity service
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.ES256, new ImmutableJWKSet<>(jwks)));
+        Jwt jwt = new NimbusJwtDecoder(processor).decode(token);
+
+        Assertions.assertThat(jwt.getSubject()).isEqualTo(SyntheticDataSeeder.ADMIN_USERNAME);
+    }
+}
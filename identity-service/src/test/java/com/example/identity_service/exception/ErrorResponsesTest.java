@@ -0,0 +1,60 @@
+package com.example.identity_service.exception;
+
+import com.example.identity_service.configuration.JwtAuthenticationEntryPoint;
+import com.example.identity_service.dto.request.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.Map;
+
+class ErrorResponsesTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void body_everyErrorCode_sameJsonAsApiResponse() throws Exception {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            String expected = objectMapper.writeValueAsString(ApiResponse.builder()
+                    .code(errorCode.getCode())
+                    .message(errorCode.getMessage())
+                    .build());
+
+            Assertions.assertThat(new String(ErrorResponses.body(errorCode))).as(errorCode.name()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void body_minAttribute_renderedOnceAndCached() {
+        byte[] first = ErrorResponses.body(ErrorCode.USERNAME_INVALID, Map.of("min", 4));
+        byte[] second = ErrorResponses.body(ErrorCode.USERNAME_INVALID, Map.of("min", 4));
+
+        Assertions.assertThat(new String(first)).contains("Username must be at least 4 characters");
+        Assertions.assertThat(second).isSameAs(first);
+        Assertions.assertThat(ErrorResponses.body(ErrorCode.UNAUTHENTICATED, Map.of("min", 4)))
+                .isSameAs(ErrorResponses.body(ErrorCode.UNAUTHENTICATED));
+    }
+
+    @Test
+    void message_sharedValidationMapping() {
+        Assertions.assertThat(ErrorResponses.codeOf("INVALID_DOB")).isEqualTo(ErrorCode.INVALID_DOB);
+        Assertions.assertThat(ErrorResponses.codeOf("must not be blank")).isEqualTo(ErrorCode.INVALID_KEY);
+        Assertions.assertThat(ErrorResponses.message(ErrorCode.INVALID_DOB, Map.of("min", 18)))
+                .isEqualTo("Your age must be at least 18");
+        Assertions.assertThat(ErrorResponses.message(ErrorCode.INVALID_DOB, null)).isEqualTo(ErrorCode.INVALID_DOB.getMessage());
+    }
+
+    @Test
+    void commence_writesPreSerializedUnauthenticatedBody() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new JwtAuthenticationEntryPoint().commence(new MockHttpServletRequest(), response,
+                new BadCredentialsException("bad token"));
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(401);
+        Assertions.assertThat(response.getContentType()).isEqualTo("application/json");
+        Assertions.assertThat(response.getContentAsByteArray()).isEqualTo(ErrorResponses.body(ErrorCode.UNAUTHENTICATED));
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.identity_service.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Đo requests/sec và độ trễ (p50/p90/p99/max + histogram) theo từng endpoint, qua HTTP thật trên localhost
+ * (đi qua toàn bộ filter chain: Spring Security, CustomJwtDecoder, controller, DB H2).
+ *
+ * ➤ Mỗi Mix là một tỉ lệ gọi endpoint khác nhau (login-heavy, verify-heavy, admin-heavy).
+ * ➤ Mỗi client là một virtual thread gọi tuần tự (closed loop), giữ token riêng: /auth/token và /auth/refresh
+ *   thay token của client, giống một client thật.
+ * ➤ Không chạy cùng mvn test thường (tag "load"): mvn test -Pload-test, tham số qua -Dload.*
+ *   (mix, clients, duration, warmup tính bằng giây, users = số user được seed, max-error-rate,
+ *   concurrency-limit = true để bật ConcurrencyLimitFilter, request bị cắt tải tính là lỗi).
+ */
+@Tag("load")
+@ActiveProfiles("embedded")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"seed.users=${load.users:10000}", "logging.level.root=WARN",
+                "concurrency-limit.enabled=${load.concurrency-limit:false}"})
+class EndpointLoadTest {
+    private static final long[] BUCKET_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000};
+    private static final int BAR_WIDTH = 40;
+
+    enum Endpoint {
+        TOKEN("POST /auth/token"),
+        INTROSPECT("POST /auth/introspect"),
+        REFRESH("POST /auth/refresh"),
+        MY_INFO("GET /users/myInfo"),
+        LIST_USERS("GET /users");
+
+        final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    // Trọng số theo thứ tự TOKEN, INTROSPECT, REFRESH, MY_INFO, LIST_USERS
+    enum Mix {
+        LOGIN_HEAVY(60, 15, 10, 15, 0),
+        VERIFY_HEAVY(5, 40, 5, 50, 0),
+        ADMIN_HEAVY(5, 10, 5, 20, 60);
+
+        final int[] weights;
+        final int total;
+
+        Mix(int... weights) {
+            this.weights = weights;
+            int sum = 0;
+            for (int weight : weights)
+                sum += weight;
+            this.total = sum;
+        }
+
+        Endpoint pick(ThreadLocalRandom random) {
+            int roll = random.nextInt(total);
+            for (int i = 0; i < weights.length; i++) {
+                roll -= weights[i];
+                if (roll < 0)
+                    return Endpoint.values()[i];
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Value("${seed.users}")
+    int users;
+
+    @Value("${seed.password}")
+    String password;
+
+    @Value("${load.mix:}")
+    String selectedMix;
+
+    @Value("${load.clients:64}")
+    int clients;
+
+    @Value("${load.duration:20}")
+    long durationSeconds;
+
+    @Value("${load.warmup:5}")
+    long warmupSeconds;
+
+    // Tỉ lệ lỗi tối đa (kể cả 503 SERVICE_OVERLOADED khi hàng đợi băm mật khẩu đầy)
+    @Value("${load.max-error-rate:0.01}")
+    double maxErrorRate;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    HttpClient httpClient;
+    String base;
+    String adminToken;
+
+    @BeforeEach
+    void init() throws Exception {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        base = "http://localhost:" + port + "/identity";
+        adminToken = login(SyntheticDataSeeder.ADMIN_USERNAME);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Mix.class)
+    void run(Mix mix) throws Exception {
+        Assumptions.assumeTrue(selectedMix.isBlank() || selectedMix.equalsIgnoreCase(mix.name()),
+                () -> "load.mix=" + selectedMix);
+
+        Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(TimeUnit.SECONDS.toMicros(60), 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+
+        // Đăng nhập trước cho mọi client, ngoài thời gian đo, để không dồn clients lần BCrypt vào cùng một lúc
+        List<String> usernames = new ArrayList<>(clients);
+        List<String> tokens = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            usernames.add(SyntheticDataSeeder.usernameOf(ThreadLocalRandom.current().nextInt(Math.max(1, users))));
+            tokens.add(login(usernames.getLast()));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds + durationSeconds);
+        Map<Endpoint, Histogram> measured = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Long> measuredErrors = new EnumMap<>(Endpoint.class);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                String username = usernames.get(i);
+                String token = tokens.get(i);
+                executor.submit(() -> drive(mix, username, token, deadline, recorders, errors));
+            }
+
+            // Bỏ số liệu của giai đoạn warm-up, rồi lấy đúng khoảng đo
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            recorders.values().forEach(Recorder::reset);
+            errors.values().forEach(counter -> counter.set(0));
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            for (Endpoint endpoint : Endpoint.values()) {
+                measured.put(endpoint, recorders.get(endpoint).getIntervalHistogram());
+                measuredErrors.put(endpoint, errors.get(endpoint).get());
+            }
+        }
+
+        report(mix, measured, measuredErrors);
+
+        long ok = measured.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        long failed = measuredErrors.values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertThat(ok).isPositive();
+        Assertions.assertThat((double) failed / (ok + failed)).as("error rate").isLessThanOrEqualTo(maxErrorRate);
+    }
+
+    private void drive(Mix mix, String username, String token, long deadline,
+                       Map<Endpoint, Recorder> recorders, Map<Endpoint, AtomicLong> errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = mix.pick(random);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = httpClient.send(request(endpoint, username, token, random),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    errors.get(endpoint).incrementAndGet();
+                    continue;
+                }
+                recorders.get(endpoint).recordValue((System.nanoTime() - start) / 1000);
+                if (endpoint == Endpoint.TOKEN || endpoint == Endpoint.REFRESH)
+                    token = objectMapper.readTree(response.body()).path("result").path("token").asText();
+            } catch (IOException e) {
+                errors.get(endpoint).incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint, String username, String token, ThreadLocalRandom random) {
+        return switch (endpoint) {
+            case TOKEN -> post("/auth/token", Map.of("username", username, "password", password));
+            case INTROSPECT -> post("/auth/introspect", Map.of("token", token));
+            case REFRESH -> post("/auth/refresh", Map.of("token", token));
+            case MY_INFO -> get("/users/myInfo", token);
+            case LIST_USERS -> get("/users?size=20&username=user0" + random.nextInt(10), adminToken);
+        };
+    }
+
+    private String login(String username) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(
+                post("/auth/token", Map.of("username", username, "password", password)),
+                HttpResponse.BodyHandlers.ofString());
+        JsonNode result = objectMapper.readTree(response.body()).path("result");
+        if (response.statusCode() != 200 || !result.hasNonNull("token"))
+            throw new IllegalStateException("Login failed for " + username + ": " + response.body());
+        return result.path("token").asText();
+    }
+
+    private HttpRequest post(String path, Map<String, String> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(base + path))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private void report(Mix mix, Map<Endpoint, Histogram> histograms, Map<Endpoint, Long> errors) {
+        StringBuilder out = new StringBuilder();
+        out.append("%n=== %s: %d clients, %d s (after %d s warm-up), %d users ===%n"
+                .formatted(mix, clients, durationSeconds, warmupSeconds, users));
+        out.append("%-22s %9s %7s %9s %9s %9s %9s %9s%n"
+                .formatted("endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = histograms.get(endpoint);
+            if (histogram.getTotalCount() == 0 && errors.get(endpoint) == 0)
+                continue;
+            out.append("%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n".formatted(endpoint.label,
+                    histogram.getTotalCount(), errors.get(endpoint), histogram.getTotalCount() / (double) durationSeconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue())));
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = histograms.get(endpoint);
+            if (histogram.getTotalCount() > 0)
+                appendHistogram(out, endpoint, histogram);
+        }
+        System.out.print(out);
+    }
+
+    // Histogram theo các mốc BUCKET_MILLIS: số request có độ trễ trong (mốc trước, mốc này]
+    private static void appendHistogram(StringBuilder out, Endpoint endpoint, Histogram histogram) {
+        long[] counts = new long[BUCKET_MILLIS.length + 1];
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            int bucket = 0;
+            while (bucket < BUCKET_MILLIS.length
+                    && value.getValueIteratedTo() > TimeUnit.MILLISECONDS.toMicros(BUCKET_MILLIS[bucket]))
+                bucket++;
+            counts[bucket] += value.getCountAtValueIteratedTo();
+        }
+        int lastBucket = counts.length - 1;
+        while (lastBucket > 0 && counts[lastBucket] == 0)
+            lastBucket--;
+
+        out.append("%n%s latency histogram%n".formatted(endpoint.label));
+        long total = histogram.getTotalCount();
+        for (int i = 0; i <= lastBucket; i++) {
+            String label = i < BUCKET_MILLIS.length
+                    ? "<= %d ms".formatted(BUCKET_MILLIS[i])
+                    : "> %d ms".formatted(BUCKET_MILLIS[i - 1]);
+            out.append("  %-11s %9d %6.2f%% %s%n".formatted(label, counts[i], 100.0 * counts[i] / total,
+                    "#".repeat((int) Math.round((double) BAR_WIDTH * counts[i] / total))));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.identity_service.load;
+
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.PermissionRepository;
+import com.example.identity_service.repository.RoleRepository;
+import com.example.identity_service.repository.UserRepository;
+import com.example.identity_service.service.ScopeRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Sinh dữ liệu giả lập cho profile "embedded": seed.users user × seed.roles role × seed.permissions-per-role permission.
+ *
+ * ➤ Role liền kề dùng chung một nửa permission (giống USER ⊂ EDITOR ⊂ ...), mỗi user có seed.roles-per-user role.
+ * ➤ Mọi user dùng chung mật khẩu seed.password, chỉ băm một lần (đăng nhập vẫn tốn đúng một lần BCrypt như thật).
+ * ➤ Thêm ADMIN_USERNAME mang role ADMIN để gọi được các API quản trị (GET /users).
+ * ➤ DB đã có dữ liệu (context khác dùng lại cùng H2 in-memory) thì bỏ qua.
+ */
+@Slf4j
+@Component
+@Profile("embedded")
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SyntheticDataSeeder implements ApplicationRunner {
+    public static final String ADMIN_USERNAME = "loadadmin";
+    static final String ADMIN_ROLE = "ADMIN";
+    private static final int BATCH_SIZE = 500;
+
+    PermissionRepository permissionRepository;
+    RoleRepository roleRepository;
+    UserRepository userRepository;
+    PasswordEncoder passwordEncoder;
+    TransactionTemplate transactionTemplate;
+    EntityManager entityManager;
+    ScopeRegistry scopeRegistry;
+
+    @NonFinal
+    @Value("${seed.users}")
+    protected int USERS;
+
+    @NonFinal
+    @Value("${seed.roles}")
+    protected int ROLES;
+
+    @NonFinal
+    @Value("${seed.permissions-per-role}")
+    protected int PERMISSIONS_PER_ROLE;
+
+    @NonFinal
+    @Value("${seed.roles-per-user}")
+    protected int ROLES_PER_USER;
+
+    @NonFinal
+    @Value("${seed.password}")
+    protected String PASSWORD;
+
+    public static String usernameOf(int index) {
+        return "user%06d".formatted(index);
+    }
+
+    static String roleNameOf(int index) {
+        return "GROUP_%02d".formatted(index);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (roleRepository.existsById(roleNameOf(0))) {
+            log.info("Synthetic data already present, skipping seed");
+            return;
+        }
+        long start = System.nanoTime();
+
+        int stride = Math.max(1, PERMISSIONS_PER_ROLE / 2);
+        List<Permission> permissions = new ArrayList<>();
+        for (int p = 0; p < (ROLES - 1) * stride + PERMISSIONS_PER_ROLE; p++)
+            permissions.add(Permission.builder().name("PERM_%04d".formatted(p)).description("Permission " + p).build());
+        permissionRepository.saveAll(permissions);
+
+        List<Role> roles = new ArrayList<>(ROLES);
+        for (int r = 0; r < ROLES; r++)
+            roles.add(Role.builder()
+                    .name(roleNameOf(r))
+                    .description("Synthetic role " + r)
+                    .permission(new HashSet<>(permissions.subList(r * stride, r * stride + PERMISSIONS_PER_ROLE)))
+                    .build());
+        roleRepository.saveAll(roles);
+        Role adminRole = roleRepository.findById(ADMIN_ROLE).orElseGet(() -> roleRepository.save(Role.builder()
+                .name(ADMIN_ROLE)
+                .description("Administrator")
+                .permission(new HashSet<>(permissions.subList(0, PERMISSIONS_PER_ROLE)))
+                .build()));
+
+        String hash = passwordEncoder.encode(PASSWORD);
+        userRepository.save(User.builder()
+                .username(ADMIN_USERNAME)
+                .password(hash)
+                .roles(new HashSet<>(Set.of(adminRole)))
+                .build());
+        for (int from = 0; from < USERS; from += BATCH_SIZE) {
+            int to = Math.min(USERS, from + BATCH_SIZE);
+            int batchStart = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<User> users = new ArrayList<>(to - batchStart);
+                for (int i = batchStart; i < to; i++) {
+                    Set<Role> userRoles = new HashSet<>();
+                    for (int k = 0; k < Math.min(ROLES_PER_USER, ROLES); k++)
+                        userRoles.add(entityManager.getReference(Role.class, roleNameOf((i + k) % ROLES)));
+                    users.add(User.builder()
+                            .username(usernameOf(i))
+                            .password(hash)
+                            .firstName("First" + i)
+                            .lastName("Last" + i)
+                            .roles(userRoles)
+                            .build());
+                }
+                userRepository.saveAll(users);
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        scopeRegistry.rebuild();
+
+        log.info("Seeded {} users, {} roles, {} permissions in {} ms", USERS, ROLES, permissions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.identity_service.repository;
+
+import com.example.identity_service.dto.response.UserExportRow;
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.service.UsernameRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// "user" là từ khóa của H2 nên không dùng database mặc định của @DataJpaTest
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user-repository;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void initData() {
+        Set<Role> roles = new HashSet<>();
+        IntStream.range(0, 5).forEach(i -> {
+            Permission permission = Permission.builder().name("PERMISSION_" + i).build();
+            entityManager.persist(permission);
+            Role role = Role.builder().name("ROLE_" + i).permission(Set.of(permission)).build();
+            entityManager.persist(role);
+            roles.add(role);
+        });
+        entityManager.persist(User.builder().username("john").password("password").roles(roles).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findWithRolesByUsername_rolesAndPermissions_singleQuery() {
+        User user = userRepository.findWithRolesByUsernameKey("john").orElseThrow();
+
+        // Duyệt giống buildScope: không được phát sinh thêm câu SQL nào
+        long permissions = user.getRoles().stream()
+                .mapToLong(role -> role.getPermission().size())
+                .sum();
+
+        Assertions.assertThat(user.getRoles()).hasSize(5);
+        Assertions.assertThat(permissions).isEqualTo(5);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithRoleNamesByUsername_roleNames_singleQuery() {
+        User user = userRepository.findWithRoleNamesByUsernameKey("john").orElseThrow();
+
+        Assertions.assertThat(user.getRoles()).extracting(Role::getName).hasSize(5);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findPageIds_walkByKeyset_filtersAndOrders() {
+        List.of("johnny", "jo_e", "anna", "johanna").forEach(username ->
+                entityManager.persist(User.builder().username(username).firstName("F" + username).build()));
+        entityManager.flush();
+
+        List<UUID> firstPage = userRepository.findPageIds(null, null, "jo%", null, Limit.of(2));
+        User last = userRepository.findById(firstPage.getLast()).orElseThrow();
+        List<UUID> secondPage = userRepository.findPageIds(last.getUsername(), last.getId(), "jo%", null, Limit.of(2));
+
+        Assertions.assertThat(usernames(firstPage)).containsExactly("jo_e", "johanna");
+        Assertions.assertThat(usernames(secondPage)).containsExactly("john", "johnny");
+        // '_' được escape thành ký tự thường, không còn là wildcard
+        Assertions.assertThat(usernames(userRepository.findPageIds(null, null, "jo!_%", null, Limit.of(10))))
+                .containsExactly("jo_e");
+        Assertions.assertThat(usernames(userRepository.findPageIds(null, null, null, "Fann%", Limit.of(10))))
+                .containsExactly("anna");
+    }
+
+    @Test
+    void streamExportRows_rolesJoinedInSameQuery() {
+        List<UserExportRow> rows;
+        try (var stream = userRepository.streamExportRows()) {
+            rows = stream.toList();
+        }
+
+        Assertions.assertThat(rows).hasSize(5).allMatch(row -> row.getUsername().equals("john"));
+        Assertions.assertThat(rows).extracting(UserExportRow::getRoleName).doesNotContainNull();
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void saveAndFlush_sameNormalizedUsername_uniqueIndexRejects() {
+        var exception = assertThrows(DataIntegrityViolationException.class,
+                () -> userRepository.saveAndFlush(User.builder().username("JOHN").build()));
+
+        Assertions.assertThat(UsernameRegistry.isDuplicateUsername(exception)).isTrue();
+    }
+
+    private List<String> usernames(List<UUID> ids) {
+        return ids.stream()
+                .map(id -> userRepository.findById(id).orElseThrow().getUsername())
+                .toList();
+    }
+}
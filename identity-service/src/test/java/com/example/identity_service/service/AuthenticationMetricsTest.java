@@ -0,0 +1,85 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.request.AuthenticationRequest;
+import com.example.identity_service.dto.request.IntrospecRequest;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class AuthenticationMetricsTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void initData() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .username("john")
+                .password("{bcrypt}hash")
+                .roles(Set.of(Role.builder().name("USER").build()))
+                .build();
+        when(userRepository.findWithRoleNamesByUsernameKey("john")).thenReturn(Optional.of(user));
+
+        PasswordHashingService passwordHashingService = Mockito.mock(PasswordHashingService.class);
+        when(passwordHashingService.matches(anyString(), anyString())).thenReturn(true);
+
+        ScopeRegistry scopeRegistry = Mockito.mock(ScopeRegistry.class);
+        when(scopeRegistry.scopeOf(any())).thenReturn("ROLE_USER");
+
+        SigningKeyRing signingKeyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(signingKeyRing, "signerKey", "8C/z/tPPB3uL03Ww61icr3zRDNau8qIkfxxogCiLgdxf3XmfDHJs7Id+CLU/D0Ew");
+        ReflectionTestUtils.setField(signingKeyRing, "rotationPeriod", 86400L);
+        ReflectionTestUtils.setField(signingKeyRing, "refreshableDuration", 360000L);
+        ReflectionTestUtils.invokeMethod(signingKeyRing, "init");
+
+        RevocationStore revocationStore = Mockito.mock(RevocationStore.class);
+        when(revocationStore.findActive(any())).thenReturn(List.of());
+        RevocationIndex revocationIndex = new RevocationIndex(revocationStore);
+        ReflectionTestUtils.setField(revocationIndex, "BUCKET_SECONDS", 3600L);
+        ReflectionTestUtils.setField(revocationIndex, "REFRESHABLE_DURATION", 360000L);
+        ReflectionTestUtils.setField(revocationIndex, "EXPECTED_INSERTIONS", 1000L);
+        ReflectionTestUtils.setField(revocationIndex, "FPP", 0.01);
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 1000);
+        ReflectionTestUtils.invokeMethod(revocationIndex, "init");
+
+        authenticationService = new AuthenticationService(userRepository, revocationIndex, signingKeyRing,
+                passwordHashingService, scopeRegistry, new TokenEpochIndex(userRepository), new AuthenticationMetrics(meterRegistry));
+        ReflectionTestUtils.setField(authenticationService, "VALID_DURATION", 3600L);
+        ReflectionTestUtils.setField(authenticationService, "REFRESHABLE_DURATION", 360000L);
+    }
+
+    @Test
+    void authenticateThenIntrospect_recordsEveryStage() throws Exception {
+        String token = authenticationService.authenticate(
+                AuthenticationRequest.builder().username("John").password("12345678").build()).getToken();
+        authenticationService.introspect(IntrospecRequest.builder().token(token).build());
+        // Đổi một ký tự giữa chữ ký → MAC sai
+        int i = token.length() - 10;
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+        authenticationService.introspect(IntrospecRequest.builder().token(tampered).build());
+
+        for (String stage : List.of("lookup", "password_match", "scope_build", "sign", "revocation_check"))
+            Assertions.assertThat(meterRegistry.get("auth.stage").tag("stage", stage).timer().count())
+                    .as(stage).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("auth.introspect").tag("outcome", "valid").counter().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("auth.introspect").tag("outcome", "invalid").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.request.AuthenticationRequest;
+import com.example.identity_service.dto.request.IntrospecBatchRequest;
+import com.example.identity_service.dto.request.LogoutRequest;
+import com.example.identity_service.dto.response.IntrospecResponse;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import com.example.identity_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class IntrospectBatchTest {
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void initData() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .username("john")
+                .password("{bcrypt}hash")
+                .roles(Set.of(Role.builder().name("USER").build()))
+                .build();
+        when(userRepository.findWithRoleNamesByUsernameKey("john")).thenReturn(Optional.of(user));
+
+        PasswordHashingService passwordHashingService = Mockito.mock(PasswordHashingService.class);
+        when(passwordHashingService.matches(anyString(), anyString())).thenReturn(true);
+
+        ScopeRegistry scopeRegistry = Mockito.mock(ScopeRegistry.class);
+        when(scopeRegistry.scopeOf(any())).thenReturn("ROLE_USER");
+
+        SigningKeyRing signingKeyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(signingKeyRing, "signerKey", "8C/z/tPPB3uL03Ww61icr3zRDNau8qIkfxxogCiLgdxf3XmfDHJs7Id+CLU/D0Ew");
+        ReflectionTestUtils.setField(signingKeyRing, "rotationPeriod", 86400L);
+        ReflectionTestUtils.setField(signingKeyRing, "refreshableDuration", 360000L);
+        ReflectionTestUtils.invokeMethod(signingKeyRing, "init");
+
+        RevocationStore revocationStore = Mockito.mock(RevocationStore.class);
+        when(revocationStore.findActive(any())).thenReturn(List.of());
+        RevocationIndex revocationIndex = new RevocationIndex(revocationStore);
+        ReflectionTestUtils.setField(revocationIndex, "BUCKET_SECONDS", 3600L);
+        ReflectionTestUtils.setField(revocationIndex, "REFRESHABLE_DURATION", 360000L);
+        ReflectionTestUtils.setField(revocationIndex, "EXPECTED_INSERTIONS", 1000L);
+        ReflectionTestUtils.setField(revocationIndex, "FPP", 0.01);
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 1000);
+        ReflectionTestUtils.invokeMethod(revocationIndex, "init");
+
+        authenticationService = new AuthenticationService(userRepository, revocationIndex, signingKeyRing,
+                passwordHashingService, scopeRegistry, new TokenEpochIndex(userRepository), new AuthenticationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(authenticationService, "VALID_DURATION", 3600L);
+        ReflectionTestUtils.setField(authenticationService, "REFRESHABLE_DURATION", 360000L);
+        ReflectionTestUtils.setField(authenticationService, "MAX_BATCH_SIZE", 3);
+    }
+
+    private String login() {
+        return authenticationService.authenticate(
+                AuthenticationRequest.builder().username("john").password("12345678").build()).getToken();
+    }
+
+    @Test
+    void introspectBatch_mixedTokens_resultsInRequestOrder() throws Exception {
+        String valid = login();
+        String revoked = login();
+        authenticationService.logout(LogoutRequest.builder().token(revoked).build());
+
+        List<IntrospecResponse> results = authenticationService.introspectBatch(IntrospecBatchRequest.builder()
+                .tokens(List.of(valid, "not-a-jwt", revoked))
+                .build()).getResults();
+
+        Assertions.assertThat(results).extracting(IntrospecResponse::isValid).containsExactly(true, false, false);
+        Assertions.assertThat(results.get(0).getSubject()).isEqualTo("john");
+        Assertions.assertThat(results.get(0).getScope()).isEqualTo("ROLE_USER");
+        Assertions.assertThat(results.get(0).getExpiryTime()).isInTheFuture();
+        Assertions.assertThat(results.get(2).getSubject()).isNull();
+    }
+
+    @Test
+    void introspectBatch_tooManyTokens_fail() {
+        var request = IntrospecBatchRequest.builder().tokens(Collections.nCopies(4, "token")).build();
+
+        Assertions.assertThatThrownBy(() -> authenticationService.introspectBatch(request))
+                .isInstanceOf(AppException.class)
+                .extracting("errorCode").isEqualTo(ErrorCode.INTROSPECT_BATCH_TOO_LARGE);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class LoginThrottleTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger logins;
+
+    @BeforeEach
+    void initData() {
+        meterRegistry = new SimpleMeterRegistry();
+        logins = new AtomicInteger();
+    }
+
+    // rate 1/phút: trong lúc test chỉ còn lượt burst, không có lượt nào hồi lại
+    private LoginThrottle throttle(int usernameBurst, int addressBurst, int freeFailures) {
+        return new LoginThrottle(meterRegistry, 1, usernameBurst, 1, addressBurst,
+                freeFailures, 60_000, 300_000, 1000, 900);
+    }
+
+    private String succeed(LoginThrottle throttle, String username, String address) {
+        return throttle.attempt(username, address, () -> {
+            logins.incrementAndGet();
+            return "token";
+        });
+    }
+
+    private void fail(LoginThrottle throttle, String username, String address) {
+        Assertions.assertThatThrownBy(() -> throttle.attempt(username, address, () -> {
+                    logins.incrementAndGet();
+                    throw new AppException(ErrorCode.UNAUTHENTICATED);
+                }))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.UNAUTHENTICATED);
+    }
+
+    private void assertThrottled(LoginThrottle throttle, String username, String address) {
+        Assertions.assertThatThrownBy(() -> succeed(throttle, username, address))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.TOO_MANY_LOGIN_ATTEMPTS);
+    }
+
+    private double throttled(String key) {
+        return meterRegistry.get("auth.login.throttled").tag("key", key).counter().count();
+    }
+
+    @Test
+    void attempt_burstExhausted_rejectedWithoutCallingLogin() {
+        LoginThrottle throttle = throttle(3, 100, 100);
+
+        for (int i = 0; i < 3; i++)
+            Assertions.assertThat(succeed(throttle, "alice", "10.0.0.1")).isEqualTo("token");
+        // Cùng username sau khi chuẩn hóa
+        assertThrottled(throttle, "ALICE", "10.0.0.2");
+
+        Assertions.assertThat(logins).hasValue(3);
+        Assertions.assertThat(throttled("username")).isEqualTo(1);
+        Assertions.assertThat(throttled("ip")).isZero();
+        Assertions.assertThat(succeed(throttle, "bob", "10.0.0.1")).isEqualTo("token");
+    }
+
+    @Test
+    void attempt_addressExhausted_rejectsEveryUsername() {
+        LoginThrottle throttle = throttle(100, 2, 100);
+
+        succeed(throttle, "alice", "10.0.0.1");
+        succeed(throttle, "bob", "10.0.0.1");
+        assertThrottled(throttle, "carol", "10.0.0.1");
+
+        Assertions.assertThat(throttled("ip")).isEqualTo(1);
+        Assertions.assertThat(succeed(throttle, "carol", "10.0.0.2")).isEqualTo("token");
+    }
+
+    @Test
+    void attempt_failuresBeyondFreeFailures_backOff() {
+        LoginThrottle throttle = throttle(100, 100, 2);
+
+        fail(throttle, "alice", "10.0.0.1");
+        fail(throttle, "alice", "10.0.0.2");
+        Assertions.assertThat(succeed(throttle, "alice", "10.0.0.3")).isEqualTo("token");
+
+        // Thành công xóa bộ đếm của username: lại được sai 2 lần miễn phí
+        fail(throttle, "alice", "10.0.0.4");
+        fail(throttle, "alice", "10.0.0.5");
+        fail(throttle, "alice", "10.0.0.6");
+        int before = logins.get();
+        assertThrottled(throttle, "alice", "10.0.0.7");
+
+        Assertions.assertThat(logins).hasValue(before);
+        Assertions.assertThat(meterRegistry.get("auth.login.failures").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void attempt_addressFailuresNotResetBySuccess() {
+        LoginThrottle throttle = throttle(100, 100, 2);
+
+        fail(throttle, "alice", "10.0.0.1");
+        fail(throttle, "bob", "10.0.0.1");
+        succeed(throttle, "carol", "10.0.0.1");
+        fail(throttle, "dave", "10.0.0.1");
+
+        assertThrottled(throttle, "erin", "10.0.0.1");
+        Assertions.assertThat(throttled("ip")).isEqualTo(1);
+    }
+
+    @Test
+    void attempt_otherErrors_notCountedAsFailures() {
+        LoginThrottle throttle = throttle(100, 100, 0);
+
+        Assertions.assertThatThrownBy(() -> throttle.attempt("alice", "10.0.0.1", () -> {
+            throw new AppException(ErrorCode.SERVICE_OVERLOADED);
+        })).isInstanceOf(AppException.class);
+
+        Assertions.assertThat(succeed(throttle, "alice", "10.0.0.1")).isEqualTo("token");
+        Assertions.assertThat(meterRegistry.get("auth.login.failures").counter().count()).isZero();
+    }
+}
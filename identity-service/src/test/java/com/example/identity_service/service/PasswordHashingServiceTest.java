@@ -0,0 +1,85 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingService passwordHashingService;
+
+    @BeforeEach
+    void initData() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        // 1 thread, hàng đợi 1 chỗ
+        passwordHashingService = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1, 5_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void encode_queueFull_rejectedImmediately() throws Exception {
+        var running = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("password"));
+        var queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("password"));
+        // đợi 2 task đầu chiếm thread và chỗ trong hàng đợi
+        Thread.sleep(200);
+
+        var exception = assertThrows(AppException.class, () -> passwordHashingService.encode("password"));
+
+        Assertions.assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.SERVICE_OVERLOADED);
+        Assertions.assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        Assertions.assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+        Assertions.assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash");
+    }
+
+    @Test
+    void encodeAll_runsOnCappedPool() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return "hash:" + invocation.getArgument(0);
+        });
+        // import-parallelism = 2: dù máy có bao nhiêu core, import chỉ băm 2 mật khẩu cùng lúc
+        PasswordHashingService service = new PasswordHashingService(passwordEncoder, meterRegistry, 1, 1, 5_000, 2);
+        try {
+            List<String> hashes = service.encodeAll(Collections.nCopies(16, "password"));
+
+            Assertions.assertThat(hashes).hasSize(16).containsOnly("hash:password");
+            Assertions.assertThat(peak.get()).isLessThanOrEqualTo(2);
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import com.example.identity_service.entity.RevocationEvent;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevocationIndexTest {
+    private RevocationStore revocationStore;
+    private RevocationIndex revocationIndex;
+    private Date future;
+    private String persistedJti;
+
+    @BeforeEach
+    void initData() {
+        future = new Date(System.currentTimeMillis() + 60_000);
+        persistedJti = UUID.randomUUID().toString();
+        revocationStore = Mockito.mock(RevocationStore.class);
+        when(revocationStore.findActive(any()))
+                .thenReturn(List.of(InvalidatedToken.builder()
+                        .id(UUID.fromString(persistedJti))
+                        .expiryTime(future)
+                        .build()));
+
+        revocationIndex = new RevocationIndex(revocationStore);
+        ReflectionTestUtils.setField(revocationIndex, "BUCKET_SECONDS", 3600L);
+        ReflectionTestUtils.setField(revocationIndex, "REFRESHABLE_DURATION", 360000L);
+        ReflectionTestUtils.setField(revocationIndex, "EXPECTED_INSERTIONS", 1_000L);
+        ReflectionTestUtils.setField(revocationIndex, "FPP", 0.001);
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 2);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_BATCH_SIZE", 100);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_MAX_LAG", 60_000L);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_GAP_TIMEOUT", 60_000L);
+        ReflectionTestUtils.setField(revocationIndex, "FEED_RETENTION", 3600L);
+        revocationIndex.init();
+    }
+
+    @Test
+    void isRevoked_unknownJti_noDatabaseLookup() {
+        Assertions.assertThat(revocationIndex.isRevoked(UUID.randomUUID().toString())).isFalse();
+
+        verify(revocationStore, never()).findExpiryTime(anyString());
+    }
+
+    @Test
+    void isRevoked_revokedLocally_true() {
+        revocationIndex.revoke("local-jti", future);
+
+        verify(revocationStore).save("local-jti", future);
+        Assertions.assertThat(revocationIndex.isRevoked("local-jti")).isTrue();
+        Assertions.assertThat(revocationIndex.isRevoked(persistedJti)).isTrue();
+    }
+
+    @Test
+    void isRevoked_bloomHitOutsideExactSet_fallsBackToDatabase() {
+        // exact chỉ chứa 2 phần tử, jti thứ ba chỉ còn nằm trong bloom
+        revocationIndex.revoke("local-jti", future);
+        revocationIndex.revoke("overflow-jti", future);
+        when(revocationStore.findExpiryTime("overflow-jti")).thenReturn(Optional.of(future));
+
+        Assertions.assertThat(revocationIndex.isRevoked("overflow-jti")).isTrue();
+        verify(revocationStore).findExpiryTime("overflow-jti");
+    }
+
+    @Test
+    void revokedAmong_bloomHitsOutsideExactSet_singleBatchLookup() {
+        // exact đầy sau persistedJti + local-jti, hai jti sau chỉ còn nằm trong bloom
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        revocationIndex.revoke("local-jti", future);
+        revocationIndex.revoke(first, future);
+        revocationIndex.revoke(second, future);
+        when(revocationStore.findAllById(any())).thenReturn(List.of(
+                InvalidatedToken.builder().id(UUID.fromString(first)).expiryTime(future).build()));
+
+        String unknown = UUID.randomUUID().toString();
+        Assertions.assertThat(revocationIndex.revokedAmong(List.of(persistedJti, first, second, unknown)))
+                .containsExactlyInAnyOrder(persistedJti, first);
+        verify(revocationStore, times(1)).findAllById(any());
+        verify(revocationStore, never()).findExpiryTime(anyString());
+    }
+
+    private RevocationEvent event(long seq, String jti) {
+        return RevocationEvent.builder().seq(seq).jti(UUID.fromString(jti)).expiryTime(future).build();
+    }
+
+    @Test
+    void pollFeed_revokedOnOtherNode_visibleWithoutDatabase() {
+        String remote = UUID.randomUUID().toString();
+        when(revocationStore.findEventsAfter(0L, 100)).thenReturn(List.of(event(1, remote)));
+
+        revocationIndex.pollFeed();
+
+        Assertions.assertThat(revocationIndex.isRevoked(remote)).isTrue();
+        verify(revocationStore, never()).findExpiryTime(anyString());
+    }
+
+    @Test
+    void pollFeed_seqGap_appliesLaterEventsButHoldsCursor() {
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 100);
+        String later = UUID.randomUUID().toString();
+        String missing = UUID.randomUUID().toString();
+        // seq 1 chưa commit, seq 2 đã thấy
+        when(revocationStore.findEventsAfter(0L, 100)).thenReturn(List.of(event(2, later)));
+
+        revocationIndex.pollFeed();
+        revocationIndex.pollFeed();
+
+        Assertions.assertThat(revocationIndex.isRevoked(later)).isTrue();
+        verify(revocationStore, times(2)).findEventsAfter(0L, 100);
+
+        when(revocationStore.findEventsAfter(0L, 100)).thenReturn(List.of(event(1, missing), event(2, later)));
+        revocationIndex.pollFeed();
+        revocationIndex.pollFeed();
+
+        Assertions.assertThat(revocationIndex.isRevoked(missing)).isTrue();
+        verify(revocationStore).findEventsAfter(2L, 100);
+    }
+
+    @Test
+    void isRevoked_feedStale_asksDatabase() {
+        ReflectionTestUtils.setField(revocationIndex, "FEED_MAX_LAG", -1L);
+        String unknown = UUID.randomUUID().toString();
+        when(revocationStore.findExpiryTime(unknown)).thenReturn(Optional.empty());
+
+        Assertions.assertThat(revocationIndex.isRevoked(unknown)).isFalse();
+        verify(revocationStore).findExpiryTime(unknown);
+    }
+
+    @Test
+    void expire_expiredBucket_forgottenWithoutDatabase() {
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 0);
+        String jti = UUID.randomUUID().toString();
+        revocationIndex.revoke(jti, future);
+        when(revocationStore.findExpiryTime(jti)).thenReturn(Optional.of(future));
+
+        // Vẫn trong bucket của future: bloom còn giữ jti
+        revocationIndex.expire(future.getTime() - 1);
+        Assertions.assertThat(revocationIndex.isRevoked(jti)).isTrue();
+
+        // Bucket của future đã qua hẳn: bỏ filter, jti (và persistedJti) không còn làm bloom hit
+        revocationIndex.expire(future.getTime() + 3_600_000);
+        Assertions.assertThat(revocationIndex.isRevoked(jti)).isFalse();
+        verify(revocationStore, times(1)).findExpiryTime(jti);
+        verify(revocationStore, times(1)).findActive(any());
+    }
+
+    @Test
+    void revoke_concurrentWithResync_neverLostWhenExactIsFull() throws Exception {
+        // exact đầy: jti chỉ còn nằm trong bloom, lọt khỏi bloom là isRevoked trả false
+        ReflectionTestUtils.setField(revocationIndex, "EXACT_MAX_ENTRIES", 0);
+        ReflectionTestUtils.setField(revocationIndex, "EXPECTED_INSERTIONS", 100_000L);
+        Map<UUID, Date> saved = new ConcurrentHashMap<>();
+        Mockito.doAnswer(invocation -> saved.put(UUID.fromString(invocation.getArgument(0)), invocation.getArgument(1)))
+                .when(revocationStore).save(anyString(), any());
+        when(revocationStore.findActive(any())).thenAnswer(invocation -> {
+            List<InvalidatedToken> tokens = new ArrayList<>();
+            saved.forEach((id, expiry) -> tokens.add(InvalidatedToken.builder().id(id).expiryTime(expiry).build()));
+            return tokens;
+        });
+        when(revocationStore.findExpiryTime(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(saved.get(UUID.fromString(invocation.getArgument(0)))));
+        revocationIndex.resync();
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread resyncer = Thread.ofPlatform().start(() -> {
+            while (!done.get())
+                revocationIndex.resync();
+        });
+        List<String> lost = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5_000; i++) {
+                String jti = UUID.randomUUID().toString();
+                revocationIndex.revoke(jti, future);
+                if (!revocationIndex.isRevoked(jti))
+                    lost.add(jti);
+            }
+        } finally {
+            done.set(true);
+            resyncer.join();
+        }
+
+        Assertions.assertThat(lost).isEmpty();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.identity_service.service;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class RevocationStoreTest {
+    @Autowired
+    private RevocationStore revocationStore;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("drop table if exists invalidated_token");
+        jdbcTemplate.execute("drop table if exists invalidated_token_legacy");
+    }
+
+    @Test
+    void migrateLegacyTable_copiesLiveRowsOnceAcrossReplicas() {
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        jdbcTemplate.execute("create table invalidated_token (id varchar(255) primary key, expiry_time timestamp)");
+        jdbcTemplate.update("insert into invalidated_token values (?, ?)", live, new Timestamp(now));
+        // Quá cả mốc refreshable-duration (100 giờ)
+        jdbcTemplate.update("insert into invalidated_token values (?, ?)",
+                expired, new Timestamp(now - TimeUnit.HOURS.toMillis(200)));
+        jdbcTemplate.update("insert into invalidated_token values (?, ?)", "not-a-uuid", new Timestamp(now));
+
+        revocationStore.migrateLegacyTable();
+        // Replica khởi động cùng lúc: bảng cũ đã bị đổi tên, không được làm hỏng lần khởi động
+        revocationStore.migrateLegacyTable();
+
+        Optional<Date> liveExpiry = revocationStore.findExpiryTime(live);
+        Assertions.assertThat(liveExpiry).get()
+                .extracting(Date::getTime)
+                .isEqualTo(now + TimeUnit.SECONDS.toMillis(360000 - 3600));
+        Assertions.assertThat(revocationStore.findExpiryTime(expired)).isEmpty();
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from invalidated_token_legacy", Integer.class)).isEqualTo(3);
+    }
+}
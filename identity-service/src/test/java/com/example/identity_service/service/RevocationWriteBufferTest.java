@@ -0,0 +1,208 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.InvalidatedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+class RevocationWriteBufferTest {
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private RevocationWriteBuffer buffer;
+
+    @BeforeEach
+    void initData() {
+        meterRegistry = new SimpleMeterRegistry();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:write_behind;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"));
+        transactionManager = new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+        jdbcTemplate.execute("create table revoked_token (id binary(16) primary key, expiry_time timestamp(6), bucket bigint)");
+        jdbcTemplate.execute("create table revocation_event (seq bigint auto_increment primary key, jti binary(16), "
+                + "expiry_time timestamp(6), created_at timestamp(6))");
+    }
+
+    @AfterEach
+    void cleanUp() throws InterruptedException {
+        if (buffer != null)
+            buffer.stop();
+        jdbcTemplate.execute("drop table revoked_token");
+        jdbcTemplate.execute("drop table revocation_event");
+    }
+
+    private static InvalidatedToken token() {
+        return InvalidatedToken.builder()
+                .id(UUID.randomUUID())
+                .expiryTime(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("select count(*) from revoked_token", Integer.class);
+    }
+
+    private int events() {
+        return jdbcTemplate.queryForObject("select count(*) from revocation_event", Integer.class);
+    }
+
+    // Writer thread luôn lỗi ở câu INSERT vào revocation_event; request thread (ghi đồng bộ) thì không
+    private JdbcTemplate failingEvents() {
+        return new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (sql.equals(RevocationWriteBuffer.EVENT_SQL) && Thread.currentThread().getName().equals("revocation-writer"))
+                    throw new DataAccessResourceFailureException("revocation_event unavailable");
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+    }
+
+    private static Set<Thread> writerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("revocation-writer"))
+                .collect(Collectors.toSet());
+    }
+
+    private void awaitFailures(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("revocation.write-behind.failures").counter().count() < count
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+    }
+
+    @Test
+    void add_visibleAsPendingUntilFlushed_thenStoredInBatches() throws Exception {
+        buffer = new RevocationWriteBuffer(jdbcTemplate, transactionManager, meterRegistry, 1000, 50, 5, 50);
+        buffer.start();
+
+        InvalidatedToken first = token();
+        buffer.add(first);
+        buffer.add(first); // trùng jti bị bỏ qua, không làm hỏng batch
+        for (int i = 0; i < 199; i++)
+            buffer.add(token());
+        Assertions.assertThat(buffer.pending(first.getId())).isPresent();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!buffer.pending().isEmpty() && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+
+        Assertions.assertThat(buffer.pending()).isEmpty();
+        Assertions.assertThat(rows()).isEqualTo(200);
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from revocation_event", Integer.class))
+                .isGreaterThanOrEqualTo(200);
+        Assertions.assertThat(meterRegistry.get("revocation.write-behind.flush").timer().count()).isLessThan(200);
+        Assertions.assertThat(meterRegistry.get("revocation.write-behind.sync").counter().count()).isZero();
+    }
+
+    @Test
+    void stop_drainsQueue() throws Exception {
+        // flush-interval dài: không có stop() thì các dòng còn nằm trong hàng đợi
+        buffer = new RevocationWriteBuffer(jdbcTemplate, transactionManager, meterRegistry, 1000, 1000, 200, 50);
+        buffer.start();
+        for (int i = 0; i < 100; i++)
+            buffer.add(token());
+
+        buffer.stop();
+        buffer = null;
+
+        Assertions.assertThat(rows()).isEqualTo(100);
+    }
+
+    @Test
+    void add_bufferFull_writesSynchronously() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // Writer bị chặn ở lần ghi đầu tiên (DB chậm), hàng đợi 1 chỗ nhanh chóng đầy
+        JdbcTemplate slow = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (Thread.currentThread().getName().equals("revocation-writer")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        buffer = new RevocationWriteBuffer(slow, transactionManager, meterRegistry, 1, 1, 1, 10);
+        buffer.start();
+
+        try {
+            buffer.add(token());
+            Thread.sleep(50); // writer đã lấy dòng đầu và đang chờ
+            buffer.add(token());
+            InvalidatedToken overflow = token();
+            buffer.add(overflow);
+
+            Assertions.assertThat(meterRegistry.get("revocation.write-behind.sync").counter().count()).isEqualTo(1);
+            Assertions.assertThat(buffer.pending(overflow.getId())).isEmpty();
+            Assertions.assertThat(rows()).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void flush_eventInsertFails_rollsBackRevokedTokenRows() throws Exception {
+        buffer = new RevocationWriteBuffer(failingEvents(), transactionManager, meterRegistry, 1000, 50, 1, 50);
+        buffer.start();
+
+        InvalidatedToken token = token();
+        buffer.add(token);
+        awaitFailures(2);
+
+        // Không có dòng revoked_token nào thiếu event: cả batch được rollback và còn chờ ghi lại
+        Assertions.assertThat(rows()).isZero();
+        Assertions.assertThat(events()).isZero();
+        Assertions.assertThat(buffer.pending(token.getId())).isPresent();
+    }
+
+    @Test
+    void flush_writerInterrupted_stopsRetryingAndWritesSynchronously() throws Exception {
+        buffer = new RevocationWriteBuffer(failingEvents(), transactionManager, meterRegistry, 1000, 50, 1, 50);
+        // Context Spring của các test khác (được cache) cũng có luồng revocation-writer
+        Set<Thread> others = writerThreads();
+        buffer.start();
+        Set<Thread> started = writerThreads();
+        started.removeAll(others);
+        Thread writer = started.iterator().next();
+        InvalidatedToken first = token();
+        buffer.add(first);
+        awaitFailures(1);
+
+        writer.interrupt();
+        writer.join(2_000);
+
+        Assertions.assertThat(writer.isAlive()).isFalse();
+        double failures = meterRegistry.get("revocation.write-behind.failures").counter().count();
+        Thread.sleep(50);
+        Assertions.assertThat(meterRegistry.get("revocation.write-behind.failures").counter().count()).isEqualTo(failures);
+
+        // Writer đã dừng: request tự ghi đồng bộ thay vì xếp hàng mãi
+        buffer.add(token());
+        Assertions.assertThat(meterRegistry.get("revocation.write-behind.sync").counter().count()).isEqualTo(1);
+        Assertions.assertThat(rows()).isEqualTo(1);
+
+        // Batch đang thử lại được trả về hàng đợi, stop() ghi nốt
+        Assertions.assertThat(buffer.pending(first.getId())).isPresent();
+        buffer.stop();
+        Assertions.assertThat(buffer.pending(first.getId())).isEmpty();
+        buffer = null;
+        Assertions.assertThat(rows()).isEqualTo(2);
+        Assertions.assertThat(events()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.Permission;
+import com.example.identity_service.entity.Role;
+import com.example.identity_service.repository.RoleRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.when;
+
+class ScopeRegistryTest {
+    private RoleRepository roleRepository;
+    private ScopeRegistry scopeRegistry;
+
+    @BeforeEach
+    void initData() {
+        Permission read = Permission.builder().name("READ_DATA").build();
+        Permission write = Permission.builder().name("WRITE_DATA").build();
+        roleRepository = Mockito.mock(RoleRepository.class);
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(
+                Role.builder().name("ADMIN").permission(Set.of(write, read)).build(),
+                Role.builder().name("USER").permission(Set.of(read)).build()));
+
+        scopeRegistry = new ScopeRegistry(roleRepository);
+        scopeRegistry.init();
+    }
+
+    @Test
+    void scopeOf_singleRole_precomputedFragment() {
+        Assertions.assertThat(scopeRegistry.scopeOf(List.of("ADMIN"))).isEqualTo("ROLE_ADMIN READ_DATA WRITE_DATA");
+    }
+
+    @Test
+    void scopeOf_sharedPermission_deduplicated() {
+        Assertions.assertThat(scopeRegistry.scopeOf(List.of("ADMIN", "USER")))
+                .isEqualTo("ROLE_ADMIN READ_DATA WRITE_DATA ROLE_USER");
+    }
+
+    @Test
+    void scopeOf_afterRebuild_seesNewRole() {
+        Assertions.assertThat(scopeRegistry.scopeOf(List.of("AUDITOR"))).isEqualTo("ROLE_AUDITOR");
+
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(
+                Role.builder().name("AUDITOR").permission(Set.of(Permission.builder().name("READ_LOG").build())).build()));
+        scopeRegistry.rebuild();
+
+        Assertions.assertThat(scopeRegistry.scopeOf(List.of("AUDITOR"))).isEqualTo("ROLE_AUDITOR READ_LOG");
+        Assertions.assertThat(scopeRegistry.scopeOf(List.of("ADMIN"))).isEqualTo("ROLE_ADMIN");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.identity_service.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+class SigningKeyRingTest {
+    private static final String SIGNER_KEY = "8C/z/tPPB3uL03Ww61icr3zRDNau8qIkfxxogCiLgdxf3XmfDHJs7Id+CLU/D0Ew";
+
+    private SigningKeyRing signingKeyRing;
+    private JWTClaimsSet claims;
+
+    @BeforeEach
+    void initData() {
+        signingKeyRing = new SigningKeyRing();
+        ReflectionTestUtils.setField(signingKeyRing, "signerKey", SIGNER_KEY);
+        ReflectionTestUtils.setField(signingKeyRing, "rotationPeriod", 86400L);
+        ReflectionTestUtils.setField(signingKeyRing, "refreshableDuration", 360000L);
+        signingKeyRing.init();
+
+        claims = new JWTClaimsSet.Builder()
+                .subject("john")
+                .issueTime(new Date())
+                .jwtID("jti")
+                .build();
+    }
+
+    @Test
+    void sign_stampsKidAndVerifies() throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(signingKeyRing.sign(claims));
+
+        Assertions.assertThat(signedJWT.getHeader().getKeyID()).startsWith("k");
+        Assertions.assertThat(signedJWT.getJWTClaimsSet().getSubject()).isEqualTo("john");
+        Assertions.assertThat(signingKeyRing.verify(signedJWT)).isTrue();
+    }
+
+    @Test
+    void verify_tamperedPayload_fail() throws Exception {
+        String[] parts = signingKeyRing.sign(claims).split("\\.");
+        String forged = parts[0] + "." + new Payload(Map.of("sub", "admin")).toBase64URL() + "." + parts[2];
+
+        Assertions.assertThat(signingKeyRing.verify(SignedJWT.parse(forged))).isFalse();
+    }
+
+    @Test
+    void verify_unknownKid_fail() throws Exception {
+        JWSObject jwsObject = new JWSObject(new JWSHeader.Builder(JWSAlgorithm.HS512).keyID("k1").build(),
+                new Payload(claims.toJSONObject()));
+        jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes()));
+
+        Assertions.assertThat(signingKeyRing.verify(SignedJWT.parse(jwsObject.serialize()))).isFalse();
+    }
+
+    @Test
+    void verify_legacyTokenWithoutKid_success() throws Exception {
+        JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS512), new Payload(claims.toJSONObject()));
+        jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes()));
+
+        Assertions.assertThat(signingKeyRing.verify(SignedJWT.parse(jwsObject.serialize()))).isTrue();
+    }
+
+    @Test
+    void sign_es256_verifiesWithPublishedKeyOnly() throws Exception {
+        ReflectionTestUtils.setField(signingKeyRing, "algorithm", "ES256");
+        signingKeyRing.init();
+
+        SignedJWT signedJWT = SignedJWT.parse(signingKeyRing.sign(claims));
+        JWKSet jwks = signingKeyRing.publicJwkSet();
+        ECKey published = (ECKey) jwks.getKeyByKeyId(signedJWT.getHeader().getKeyID());
+
+        Assertions.assertThat(signedJWT.getHeader().getAlgorithm()).isEqualTo(JWSAlgorithm.ES256);
+        Assertions.assertThat(signingKeyRing.verify(signedJWT)).isTrue();
+        Assertions.assertThat(published.isPrivate()).isFalse();
+        Assertions.assertThat(signedJWT.verify(new ECDSAVerifier(published))).isTrue();
+    }
+
+    @Test
+    void verify_es256Tampered_fail() throws Exception {
+        ReflectionTestUtils.setField(signingKeyRing, "algorithm", "ES256");
+        signingKeyRing.init();
+        String[] parts = signingKeyRing.sign(claims).split("\\.");
+        String forged = parts[0] + "." + new Payload(Map.of("sub", "admin")).toBase64URL() + "." + parts[2];
+
+        Assertions.assertThat(signingKeyRing.verify(SignedJWT.parse(forged))).isFalse();
+    }
+}
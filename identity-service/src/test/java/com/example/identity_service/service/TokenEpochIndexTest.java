@@ -0,0 +1,65 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenEpochIndexTest {
+    private UserRepository userRepository;
+    private TokenEpochIndex tokenEpochIndex;
+    private User user;
+
+    @BeforeEach
+    void initData() {
+        userRepository = Mockito.mock(UserRepository.class);
+        tokenEpochIndex = new TokenEpochIndex(userRepository);
+        ReflectionTestUtils.setField(tokenEpochIndex, "REFRESHABLE_DURATION", 360000L);
+        tokenEpochIndex.init();
+        user = User.builder().id(UUID.randomUUID()).username("John").build();
+    }
+
+    @Test
+    void revokeAll_tokensIssuedBefore_stale() {
+        Date issuedBefore = new Date();
+        Instant validAfter = tokenEpochIndex.revokeAll(user);
+
+        verify(userRepository).updateTokensValidAfter(user.getId(), validAfter);
+        Assertions.assertThat(tokenEpochIndex.isStale("john", issuedBefore)).isTrue();
+        Assertions.assertThat(tokenEpochIndex.isStale("JOHN", issuedBefore)).isTrue();
+        Assertions.assertThat(tokenEpochIndex.isStale("john", Date.from(validAfter))).isFalse();
+        Assertions.assertThat(tokenEpochIndex.isStale("jane", issuedBefore)).isFalse();
+    }
+
+    @Test
+    void refresh_picksUpEpochWrittenElsewhere() {
+        Instant validAfter = Instant.now().plusSeconds(1);
+        when(userRepository.findByTokensValidAfterAfter(any())).thenReturn(List.of(new UserRepository.TokenEpoch() {
+            @Override
+            public String getUsernameKey() {
+                return "john";
+            }
+
+            @Override
+            public Instant getTokensValidAfter() {
+                return validAfter;
+            }
+        }));
+
+        tokenEpochIndex.refresh();
+
+        Assertions.assertThat(tokenEpochIndex.isStale("John", new Date())).isTrue();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.response.UserExportRow;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.mockito.Mockito.when;
+
+class UserExportServiceTest {
+
+    @Test
+    void exportUsers_consecutiveRows_groupedPerUser() throws Exception {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        LocalDate dob = LocalDate.of(1990, 1, 1);
+        UUID john = UUID.fromString("0190f0a0-5b3c-7cf0-8600-f538b3000001");
+        UUID anna = UUID.fromString("0190f0a0-5b3c-7cf0-8600-f538b3000002");
+        when(userRepository.streamExportRows()).thenReturn(Stream.of(
+                new UserExportRow(john, "john", "John", "Doe", dob, "ADMIN"),
+                new UserExportRow(john, "john", "John", "Doe", dob, "USER"),
+                new UserExportRow(anna, "anna", null, null, null, null)));
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = new UserExportService(userRepository, objectMapper).exportUsers(out);
+
+        Assertions.assertThat(exported).isEqualTo(2);
+        Assertions.assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":"0190f0a0-5b3c-7cf0-8600-f538b3000001","username":"john","firstName":"John","lastName":"Doe","doB":"1990-01-01","roles":["ADMIN","USER"]}
+                {"id":"0190f0a0-5b3c-7cf0-8600-f538b3000002","username":"anna","firstName":null,"lastName":null,"doB":null,"roles":[]}
+                """);
+    }
+}
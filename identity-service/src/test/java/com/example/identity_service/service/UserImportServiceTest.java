@@ -0,0 +1,117 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.dto.response.UserImportResponse;
+import com.example.identity_service.dto.response.UserImportRowResponse;
+import com.example.identity_service.entity.User;
+import com.example.identity_service.mapper.UserMapperImpl;
+import com.example.identity_service.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+    private UserRepository userRepository;
+    private UserImportService userImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void initData() {
+        userRepository = Mockito.mock(UserRepository.class);
+        when(userRepository.findExistingUsernameKeys(any())).thenReturn(List.of("taken"));
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            // "racer" vừa được tạo song song: qua được bước kiểm tra trước, vướng unique username_key lúc insert
+            if (users.stream().anyMatch(user -> user.getUsername().equals("racer")))
+                throw new DataIntegrityViolationException("Duplicate entry 'racer' for key 'username_key'");
+            users.forEach(user -> user.setId(UUID.nameUUIDFromBytes(user.getUsername().getBytes())));
+            return users;
+        });
+
+        PasswordHashingService passwordHashingService = Mockito.mock(PasswordHashingService.class);
+        when(passwordHashingService.encodeAll(anyList())).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(0)).stream().map(raw -> "hash:" + raw).toList());
+
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        userImportService = new UserImportService(userRepository, new UserMapperImpl(), passwordHashingService,
+                new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionTemplate, Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(userImportService, "CHUNK_SIZE", 2);
+    }
+
+    @Test
+    void importUsers_mixedRows_perRowReport() throws Exception {
+        String ndjson = """
+                {"username":"john","password":"12345678"}
+                {"username":"jo","password":"12345678"}
+                not json
+
+                {"username":"taken","password":"12345678"}
+                {"username":"JOHN","password":"12345678"}
+                {"username":"anna","password":"12345678","doB":"1990-01-01"}
+                """;
+
+        UserImportResponse response = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertThat(response.getTotal()).isEqualTo(6);
+        Assertions.assertThat(response.getCreated()).isEqualTo(2);
+        Assertions.assertThat(response.getRows())
+                .extracting(UserImportRowResponse::getLine, UserImportRowResponse::getCode)
+                .containsExactly(
+                        Assertions.tuple(1, 1000),
+                        Assertions.tuple(2, 1002),
+                        Assertions.tuple(3, 1010),
+                        Assertions.tuple(5, 1001),
+                        Assertions.tuple(6, 1001),
+                        Assertions.tuple(7, 1000));
+        Assertions.assertThat(response.getRows().get(1).getMessage()).isEqualTo("Username must be at least 4 characters");
+        Assertions.assertThat(response.getRows().getLast().getId())
+                .isEqualTo(UUID.nameUUIDFromBytes("anna".getBytes()).toString());
+        verify(userRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void importUsers_chunkRejectedByDatabase_retriesRowByRow() throws Exception {
+        String ndjson = """
+                {"username":"mary","password":"12345678"}
+                {"username":"racer","password":"12345678"}
+                {"username":"paul","password":"12345678"}
+                """;
+
+        UserImportResponse response = userImportService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertThat(response.getCreated()).isEqualTo(2);
+        Assertions.assertThat(response.getRows())
+                .extracting(UserImportRowResponse::getLine, UserImportRowResponse::getCode)
+                .containsExactly(
+                        Assertions.tuple(1, 1000),
+                        Assertions.tuple(2, 1001),
+                        Assertions.tuple(3, 1000));
+        // Lô đầu (mary, racer) thất bại rồi thử lại từng dòng; lô sau (paul) ghi bình thường
+        verify(userRepository, times(4)).saveAll(anyList());
+    }
+}
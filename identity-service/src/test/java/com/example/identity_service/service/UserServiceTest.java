@@ -4,29 +4,46 @@ import com.example.identity_service.dto.request.UserCreationRequest;
 import com.example.identity_service.dto.response.UserResponse;
 import com.example.identity_service.entity.User;
 import com.example.identity_service.exception.AppException;
+import com.example.identity_service.exception.ErrorCode;
 import com.example.identity_service.repository.UserRepository;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 @SpringBootTest
+@ActiveProfiles("embedded")
 public class UserServiceTest {
+    private static final UUID USER_ID = UUID.fromString("0190f0a0-5b3c-7cf0-8600-f538b3000001");
+
     @Autowired
     private UserService userService;
 
     @MockBean
     private UserRepository userRepository;
 
+    @Autowired
+    private UsernameRegistry usernameRegistry;
+
+    @SpyBean
+    private PasswordHashingService passwordHashingService;
+
     private UserCreationRequest request;
     private UserResponse userResponse;
     private User user;
@@ -35,6 +52,7 @@ public class UserServiceTest {
     @BeforeEach
     void initData(){
         dob = LocalDate.of(1990, 1, 1);
+        usernameRegistry.forget("john");
 
         request = UserCreationRequest.builder()
                 .username("john")
@@ -45,7 +63,7 @@ public class UserServiceTest {
                 .build();
 
         userResponse = UserResponse.builder()
-                .id("cf0600f538b3")
+                .id(USER_ID.toString())
                 .username("john")
                 .firstName("John")
                 .lastName("Doe")
@@ -53,7 +71,7 @@ public class UserServiceTest {
                 .build();
 
         user = User.builder()
-                .id("cf0600f538b3")
+                .id(USER_ID)
                 .username("john")
                 .firstName("John")
                 .lastName("Doe")
@@ -64,21 +82,21 @@ public class UserServiceTest {
     @Test
     void createUser_validRequest_success(){
         // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
-        when(userRepository.save(any())).thenReturn(user);
+        when(userRepository.saveAndFlush(any())).thenReturn(user);
 
         // WHEN
         var response = userService.createUser(request);
         // THEN
 
-        Assertions.assertThat(response.getId()).isEqualTo("cf0600f538b3");
+        Assertions.assertThat(response.getId()).isEqualTo(USER_ID.toString());
         Assertions.assertThat(response.getUsername()).isEqualTo("john");
     }
 
     @Test
     void createUser_userExisted_fail(){
         // GIVEN
-        when(userRepository.existsByUsername(anyString())).thenReturn(true);
+        when(userRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("Duplicate entry",
+                new ConstraintViolationException("Duplicate entry", null, "uk_user_username_key")));
 
         // WHEN
         var exception = assertThrows(AppException.class,
@@ -86,6 +104,38 @@ public class UserServiceTest {
 
         // THEN
         Assertions.assertThat(exception.getErrorCode().getCode())
-                .isEqualTo(1002);
+                .isEqualTo(1001);
+    }
+
+    @Test
+    void createUser_knownTakenUsername_rejectedWithoutDatabase(){
+        // GIVEN
+        when(userRepository.saveAndFlush(any())).thenReturn(user);
+        userService.createUser(request);
+
+        // WHEN: cùng tên, khác hoa thường
+        request.setUsername("JOHN");
+        var exception = assertThrows(AppException.class,
+                () -> userService.createUser(request));
+
+        // THEN
+        Assertions.assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.USER_EXISTED);
+        verify(userRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void createUser_existingUsername_rejectedBeforeHashing(){
+        // GIVEN
+        when(userRepository.existsByUsernameKey("john")).thenReturn(true);
+
+        // WHEN
+        var exception = assertThrows(AppException.class,
+                () -> userService.createUser(request));
+
+        // THEN: không tốn một lần BCrypt, không insert; lần sau UsernameRegistry từ chối luôn
+        Assertions.assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.USER_EXISTED);
+        verify(passwordHashingService, never()).encode(any());
+        verify(userRepository, never()).saveAndFlush(any());
+        Assertions.assertThat(usernameRegistry.isKnownTaken("john")).isTrue();
     }
-}
\ No newline at end of file
+}
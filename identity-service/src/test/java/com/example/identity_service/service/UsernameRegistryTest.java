@@ -0,0 +1,60 @@
+package com.example.identity_service.service;
+
+import com.example.identity_service.entity.User;
+import com.example.identity_service.repository.UserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+// Backfill tự mở transaction cho từng lô/từng dòng, nên test không chạy trong transaction của @DataJpaTest
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:username-registry;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsernameRegistryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void backfillUsernameKeys_legacyRows_normalizedAndCollisionSkipped() {
+        List.of("Anna", "Bob", "carol").forEach(username ->
+                userRepository.saveAndFlush(User.builder().username(username).build()));
+        // Dòng cũ: cột username_key được thêm vào sau nên còn null; "ANNA" trùng key với "Anna"
+        jdbcTemplate.update("update user set username_key = null");
+        jdbcTemplate.update("update user set username = 'ANNA' where username = 'carol'");
+
+        new UsernameRegistry(userRepository, transactionManager, 100, 60).backfillUsernameKeys();
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select username, username_key from user");
+        Assertions.assertThat(rows).extracting(row -> row.get("username_key"))
+                .containsExactlyInAnyOrder("anna", "bob", null);
+        Assertions.assertThat(rows)
+                .filteredOn(row -> "anna".equals(row.get("username_key")))
+                .extracting(row -> row.get("username"))
+                .singleElement().isIn("Anna", "ANNA");
+        Assertions.assertThat(userRepository.findByUsernameKey("bob")).get()
+                .extracting(User::getUsername).isEqualTo("Bob");
+    }
+}
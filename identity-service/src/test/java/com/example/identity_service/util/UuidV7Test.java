@@ -0,0 +1,29 @@
+package com.example.identity_service.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+class UuidV7Test {
+
+    @Test
+    void generate_tightLoop_strictlyIncreasing() {
+        UUID previous = UuidV7.generate();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.generate();
+            Assertions.assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void generate_versionAndVariant() {
+        UUID uuid = UuidV7.generate();
+
+        Assertions.assertThat(uuid.version()).isEqualTo(7);
+        Assertions.assertThat(uuid.variant()).isEqualTo(2);
+        Assertions.assertThat(uuid.getMostSignificantBits() >>> 16)
+                .isBetween(System.currentTimeMillis() - 1000, System.currentTimeMillis() + 1000);
+    }
+}